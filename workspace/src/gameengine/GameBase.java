@@ -5,10 +5,12 @@ package gameengine;
 
 import java.awt.Graphics;
 import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
 
 import gameengine.graphics.MyWindow;
 import gameengine.input.KeyboardInputManager;
 import gameengine.input.MouseInputManager;
+import gameengine.profiling.Profiler;
 
 /**
  * 
@@ -18,10 +20,18 @@ import gameengine.input.MouseInputManager;
 public abstract class GameBase {
 	protected MyWindow window;
 
+	private int tickRate = 60; //number of fixed simulation steps per second
+	private int maxStepsPerFrame = 5; //limit of catch-up steps before the remaining time is dropped
+	private SnapshotRenderer<?> snapshotRenderer; //null to update and draw in turns on one thread
+	private long accumulator; //time in ns that has not been simulated yet, less than one step after runSteps
+
 	//-----------------------------------------------ABSTRACT METHODS FOR SUB-CLASS
 	public abstract void init();
 	public abstract void update(float tslf);
-	public abstract void draw(Graphics graphics);
+	/**
+	 * @param alpha How far (0 to 1) the current frame is between the last and the next simulation step
+	 */
+	public abstract void draw(Graphics graphics, float alpha);
 	//-----------------------------------------------END ABSTRACT METHODS
 
 	/**
@@ -45,29 +55,160 @@ public abstract class GameBase {
 		long StartOfGame = System.currentTimeMillis();
 		System.out.println("Time needed for initialization: [" + (StartOfGame - StartOfInit) + "ms]");
 		
-		long lastFrame = System.currentTimeMillis();
-
+		if(snapshotRenderer != null) {
+			startRenderThread(snapshotRenderer);
+			return;
+		}
+		
 		while(true) {
-			lastFrame = System.currentTimeMillis();
+			long lastFrame = System.nanoTime();
+			accumulator = 0;
 			while(window.isActive()) {
-				//Calculating time since last frame
-				long thisFrame = System.currentTimeMillis();
-				float tslf = (float)(thisFrame - lastFrame) / 1000f;
+				//Collecting the time since last frame
+				long thisFrame = System.nanoTime();
+				accumulator += thisFrame - lastFrame;
 				lastFrame = thisFrame;
+				Profiler.FRAME.start();
+
+				runSteps();
+				float alpha = (float) accumulator / getStepLength();
 
-				update(tslf); //Calling method update() in the sub-class 
 				BufferStrategy bs = window.beginDrawing();
 				do{
 					do{
 						Graphics g = bs.getDrawGraphics();
 						g.translate(window.getInsetX(), window.getInsetY());
-						draw(g); //Calling method draw() in the sub-class
+						Profiler.DRAW.start();
+						draw(g, alpha); //Calling method draw() in the sub-class
+						Profiler.DRAW.stop();
 						g.dispose();
 					}while(bs.contentsLost());
+					Profiler.SHOW.start();
 					bs.show();
+					Profiler.SHOW.stop();
 				}while(bs.contentsLost());
+				Profiler.FRAME.stop();
 				
 			}
 		}
 	}
+
+	/**
+	 * Updates on a new simulation thread and draws the latest snapshot on this one, until the game exits.
+	 * The simulation publishes a snapshot after the steps of every frame through a triple buffer,
+	 * so neither thread waits for the other: a slow frame never holds back the updates and vice versa.
+	 */
+	private <S> void startRenderThread(SnapshotRenderer<S> renderer) {
+		TripleBuffer<Frame<S>> frames = new TripleBuffer<>(new Frame<>(renderer.createSnapshot()), new Frame<>(renderer.createSnapshot()), new Frame<>(renderer.createSnapshot()));
+		Thread simulation = new Thread(() -> simulate(renderer, frames), "Simulation");
+		simulation.setDaemon(true);
+		simulation.start();
+		
+		while(true) {
+			Frame<S> frame = frames.acquire();
+			if(frame == null || !window.isActive()) {
+				LockSupport.parkNanos(1000000L); //nothing to draw yet
+				continue;
+			}
+			Profiler.FRAME.start();
+			float alpha = Math.min(1f, (float) (System.nanoTime() - frame.time) / getStepLength());
+
+			BufferStrategy bs = window.beginDrawing();
+			do{
+				do{
+					Graphics g = bs.getDrawGraphics();
+					g.translate(MyWindow.getInsetX(), MyWindow.getInsetY());
+					Profiler.DRAW.start();
+					renderer.drawSnapshot(g, frame.snapshot, alpha);
+					Profiler.DRAW.stop();
+					g.dispose();
+				}while(bs.contentsLost());
+				Profiler.SHOW.start();
+				bs.show();
+				Profiler.SHOW.stop();
+			}while(bs.contentsLost());
+			Profiler.FRAME.stop();
+		}
+	}
+
+	//The loop of the simulation thread, the same fixed steps as the loop of start
+	private <S> void simulate(SnapshotRenderer<S> renderer, TripleBuffer<Frame<S>> frames) {
+		while(true) {
+			long lastFrame = System.nanoTime();
+			accumulator = 0;
+			while(window.isActive()) {
+				long thisFrame = System.nanoTime();
+				accumulator += thisFrame - lastFrame;
+				lastFrame = thisFrame;
+
+				if(runSteps() > 0) {
+					Frame<S> frame = frames.getBack();
+					renderer.writeSnapshot(frame.snapshot);
+					frame.time = thisFrame - accumulator;
+					frames.publish();
+				}
+				LockSupport.parkNanos(getStepLength() - accumulator); //sleeping until the next step is due
+			}
+			LockSupport.parkNanos(1000000L);
+		}
+	}
+
+	/**
+	 * Simulates the accumulated time in fixed steps, independent of the frame rate
+	 * @return The number of steps run
+	 */
+	private int runSteps() {
+		long stepLength = getStepLength();
+		int steps = 0;
+		while(accumulator >= stepLength && steps < maxStepsPerFrame) {
+			Profiler.UPDATE.start();
+			update(1f / tickRate); //Calling method update() in the sub-class 
+			Profiler.UPDATE.stop();
+			accumulator -= stepLength;
+			steps++;
+		}
+		if(accumulator >= stepLength) accumulator %= stepLength; //Too far behind, dropping the time instead of spiralling
+		return steps;
+	}
+
+	//Length of one simulation step in ns
+	private long getStepLength() {
+		return 1000000000L / tickRate;
+	}
+
+	//A snapshot and the time of the last simulation step written to it
+	private static class Frame<S> {
+		private final S snapshot;
+		private long time;
+
+		private Frame(S snapshot) {
+			this.snapshot = snapshot;
+		}
+	}
+
+	//---------------------------------------------Setters
+	/**
+	 * Sets how many fixed simulation steps are run per second
+	 * @param tickRate The number of steps per second
+	 */
+	public void setTickRate(int tickRate) {
+		this.tickRate = tickRate;
+	}
+
+	/**
+	 * Sets how many simulation steps may be run in one frame to catch up
+	 * @param maxStepsPerFrame The maximum number of steps per frame
+	 */
+	public void setMaxStepsPerFrame(int maxStepsPerFrame) {
+		this.maxStepsPerFrame = maxStepsPerFrame;
+	}
+
+	/**
+	 * Runs the simulation on its own thread and draws snapshots of it instead of calling draw, must be set before start.
+	 * The threads share nothing but the snapshots, the renderer must not read the game state while drawing.
+	 * @param snapshotRenderer Writes and draws the snapshots, null to update and draw on one thread
+	 */
+	public void setSnapshotRenderer(SnapshotRenderer<?> snapshotRenderer) {
+		this.snapshotRenderer = snapshotRenderer;
+	}
 }
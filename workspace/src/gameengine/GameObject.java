@@ -7,26 +7,43 @@ import gameengine.maths.Vector2D;
 public class GameObject {
 
 	protected Vector2D position;
+	protected Vector2D previousPosition; //position before the last simulation step, used to interpolate drawing
 	protected int width;
 	protected int height;
 	
 	public GameObject() {
 		this.position = new Vector2D();
+		this.previousPosition = new Vector2D();
 	}
 	
 	public GameObject(float x, float y) {
 		this.position = new Vector2D(x, y);
+		this.previousPosition = new Vector2D(x, y);
 	}
 	
 	public GameObject(float x, float y, int width, int height) {
 		this.position = new Vector2D(x, y);
+		this.previousPosition = new Vector2D(x, y);
 		this.width = width;
 		this.height = height;
 	}
 	
 	public void update (float tslf) {};
 	
-	public void draw (Graphics g) {};
+	public void draw (Graphics g) {
+		draw(g, 1);
+	};
+	
+	/**
+	 * Draws the object between its previous and current position
+	 * @param alpha 0 draws the previous position, 1 the current one
+	 */
+	public void draw (Graphics g, float alpha) {};
+	
+	public void savePreviousPosition() {
+		previousPosition.x = position.x;
+		previousPosition.y = position.y;
+	}
 	
 	
 	//------------------------------------Getters
@@ -38,6 +55,22 @@ public class GameObject {
 		return position.y;
 	}
 	
+	public float getPreviousX() {
+		return previousPosition.x;
+	}
+	
+	public float getPreviousY() {
+		return previousPosition.y;
+	}
+	
+	public float getRenderX(float alpha) {
+		return previousPosition.x + (position.x - previousPosition.x) * alpha;
+	}
+	
+	public float getRenderY(float alpha) {
+		return previousPosition.y + (position.y - previousPosition.y) * alpha;
+	}
+	
 	public int getWidth() {
 		return width;
 	}
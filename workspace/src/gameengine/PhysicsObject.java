@@ -32,6 +32,7 @@ public class PhysicsObject extends GameObject{
 
 	@Override
 	public void update(float tslf) {
+		savePreviousPosition();
 		movementVector.y += (Level.GRAVITY * Level.GRAVITY) * tslf;
 
 		updateCollisionMatrix(tslf); // checking collision based on the new position -> current movement Vector
@@ -66,101 +67,44 @@ public class PhysicsObject extends GameObject{
 	}
 
 	public void updateCollisionMatrix(float tslf) {
-		Vector2D newPositon = new Vector2D(getX(), getY());
-		newPositon.x += movementVector.x * tslf;
-		newPositon.y += movementVector.y * tslf;
+		//new Position of Physics Object
+		float newX = getX() + movementVector.x * tslf;
+		float newY = getY() + movementVector.y * tslf;
 
-		//Finding the closest obstacles to the player in all 4 directions;
-		float closestBot = Float.MAX_VALUE, closestTop = Float.MAX_VALUE, closestLef = Float.MAX_VALUE, closestRig = Float.MAX_VALUE;
-		Tile bot = null, top = null, lef = null, rig = null;
-
-		//old Position of Physics Object
-		float leftSide = hitbox.getX();
-		float rightSide = hitbox.getX() + hitbox.getWidth();
-		float topSide = hitbox.getY();
-		float botSide = hitbox.getY() + hitbox.getHeight();
-		
-		for (int i = 0; i < level.getMap().getWidth(); i++) {
-			for (int j = 0; j < level.getMap().getHeight(); j++) {
-				Tile tile = level.getMap().getTiles()[i][j];
-				if(!tile.isSolid()) continue;
-				RectHitbox obstacle = tile.getHitbox();
-				if(obstacle == null) continue;
-				
-				//Position of tile
-				float tileLeftSide = obstacle.getX();
-				float tileRightSide = obstacle.getX() + obstacle.getWidth();
-				float tileTopSide = obstacle.getY();
-				float tileBotSide = obstacle.getY() + obstacle.getHeight();
-				
-				//Find closest obstacle below player
-				if(leftSide < tileRightSide && rightSide > tileLeftSide && botSide <= tileTopSide) {
-					//When current bottom side of player is above top side of obstacle
-					if(tileTopSide - (botSide) < closestBot) {
-						//When the top side of the obstacle is closer to the bottom side of the player
-						bot = tile;
-						closestBot = tileTopSide - (botSide);
-					}
-				}
-				//Find closest obstacle above player
-				if(leftSide < tileRightSide && rightSide > tileLeftSide && topSide >= tileBotSide) {
-					//When current top side of player is below bottom side of obstacle
-					if(topSide - (tileBotSide) < closestTop) {
-						top = tile;
-						closestTop = topSide - (tileBotSide);
-					}
-				}
-				//Find closest obstacle right to the player
-				if(topSide < tileBotSide && botSide > tileTopSide && rightSide <= tileLeftSide) {
-					//When current right side of player is left to left side of obstacle
-					if(tileLeftSide - (rightSide) < closestRig) {
-						rig = tile;
-						closestRig = tileLeftSide - (rightSide);
-					}
-				}
-				//Find closest obstacle left to the player
-				if(topSide < tileBotSide && botSide > tileTopSide && leftSide >= tileRightSide) {
-					//When current left side of player is right to right side of obstacle
-					if(leftSide - (tileRightSide) < closestLef) {
-						lef = tile;
-						closestLef = leftSide - (tileRightSide);
-					}
-				}
-			}
-		}
-		//Save closest as options
-		closestMatrix[BOT] = bot;
-		closestMatrix[TOP] = top;
-		closestMatrix[LEF] = lef;
-		closestMatrix[RIG] = rig;
+		//Finding the closest obstacles to the player in all 4 directions, based on the old position of the hitbox
+		level.getMap().getCollisionLayer().findClosest(hitbox.getX(), hitbox.getY(), hitbox.getX() + hitbox.getWidth(), hitbox.getY() + hitbox.getHeight(), closestMatrix);
+		Tile bot = closestMatrix[BOT], top = closestMatrix[TOP], lef = closestMatrix[LEF], rig = closestMatrix[RIG];
 		
-		//Fill Matrix when collision really is detected
-		Tile[] matrix = new Tile[4];
+		//Fill Matrix when collision really is detected, reusing the array to keep the update free of allocations
+		Tile[] matrix = collisionMatrix;
+		matrix[BOT] = null;
+		matrix[TOP] = null;
+		matrix[LEF] = null;
+		matrix[RIG] = null;
 		if(bot != null) {
-			if(newPositon.y + (hitbox.getOffsetY() + hitbox.getHeight()) > bot.getHitbox().getY()) {
+			if(newY + (hitbox.getOffsetY() + hitbox.getHeight()) > bot.getHitbox().getY()) {
 				//When new bottom side of player is below top side of obstacle
 				matrix[BOT] = bot;
 			}
 		}
 		if(top != null) {
-			if(newPositon.y + hitbox.getOffsetY() < top.getHitbox().getY() + top.getHitbox().getHeight()) {
+			if(newY + hitbox.getOffsetY() < top.getHitbox().getY() + top.getHitbox().getHeight()) {
 				//When new top side of player is above bottom side of obstacle
 				matrix[TOP] = top;
 			}
 		}
 		if(lef != null) {
-			if(newPositon.x + hitbox.getOffsetX() < lef.getHitbox().getX() + lef.getHitbox().getWidth()) {
+			if(newX + hitbox.getOffsetX() < lef.getHitbox().getX() + lef.getHitbox().getWidth()) {
 				//When new left side of player is left to right side of obstacle
 				matrix[LEF] = lef;
 			}
 		}
 		if(rig != null) {
-			if(newPositon.x + (hitbox.getOffsetX() + hitbox.getWidth()) > rig.getHitbox().getX()) {
+			if(newX + (hitbox.getOffsetX() + hitbox.getWidth()) > rig.getHitbox().getX()) {
 				//When new right side of player is right to left side of obstacle
 				matrix[RIG] = rig;
 			}
 		}	
-		this.collisionMatrix = matrix; //Set the matrix
 	}
 
 	//-----------------------------------------------------Getters
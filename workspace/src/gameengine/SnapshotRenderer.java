@@ -0,0 +1,24 @@
+package gameengine;
+
+import java.awt.Graphics;
+
+/**
+ * Drawing from snapshots, for games that simulate and draw on different threads, see GameBase.setSnapshotRenderer.
+ * A snapshot holds everything draw needs, the simulation thread writes it and the render thread reads it,
+ * never at the same time.
+ */
+public interface SnapshotRenderer<S> {
+	public S createSnapshot();
+
+	/**
+	 * Called on the simulation thread after the updates of a frame
+	 * @param snapshot Holds an older state, all of it has to be written again
+	 */
+	public void writeSnapshot(S snapshot);
+
+	/**
+	 * Called on the render thread
+	 * @param alpha How far (0 to 1) the frame is between the previous and the current state of the snapshot
+	 */
+	public void drawSnapshot(Graphics graphics, S snapshot, float alpha);
+}
@@ -0,0 +1,53 @@
+package gameengine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands objects from one producer thread to one consumer thread without locks and without waiting.
+ * The producer fills the back slot and publishes it, the consumer takes the latest published slot.
+ * Neither ever sees a slot the other one is using: the third slot sits between them,
+ * holding the latest published state until one of them swaps it.
+ */
+public class TripleBuffer<T> {
+
+	private static final int INDEX = 3; //bits of state with the index of the middle slot
+	private static final int FRESH = 4; //bit of state set when the middle slot was published and not taken yet
+
+	private final Object[] slots;
+	private final AtomicInteger state = new AtomicInteger(1); //middle slot
+	private int back = 0; //only used by the producer
+	private int front = 2; //only used by the consumer
+	private boolean published; //at least one slot was published, only used by the consumer
+
+	public TripleBuffer(T a, T b, T c) {
+		slots = new Object[] {a, b, c};
+	}
+
+	/**
+	 * @return The slot the producer can write to
+	 */
+	@SuppressWarnings("unchecked")
+	public T getBack() {
+		return (T) slots[back];
+	}
+
+	/**
+	 * Makes the back slot the latest state, the producer continues with another slot
+	 */
+	public void publish() {
+		back = state.getAndSet(back | FRESH) & INDEX;
+	}
+
+	/**
+	 * Takes the latest published slot if there is a new one
+	 * @return The latest published slot, null if nothing has been published yet
+	 */
+	@SuppressWarnings("unchecked")
+	public T acquire() {
+		if((state.get() & FRESH) != 0) {
+			front = state.getAndSet(front) & INDEX;
+			published = true;
+		}
+		return published ? (T) slots[front] : null;
+	}
+}
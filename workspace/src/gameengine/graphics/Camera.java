@@ -12,6 +12,7 @@ public class Camera {
 	public static final boolean SHOW_CAMERA = false;
 	
 	private Vector2D position;
+	private Vector2D previousPosition; //used to interpolate drawing between two updates
 	private Player player;
 	
 	private int width;
@@ -35,6 +36,7 @@ public class Camera {
 	
 	public Camera(int width, int height, int borderLeft, int borderRight, int borderBot) {
 		this.position = new Vector2D();
+		this.previousPosition = new Vector2D();
 		this.goalPosition = new Vector2D();
 		this.width = width;
 		this.height = height;
@@ -44,6 +46,7 @@ public class Camera {
 	}
 	
 	public void update(float tslf) {
+		savePreviousPosition();
 		if(player != null) {
 			
 			calulateGoalPositon();
@@ -79,6 +82,14 @@ public class Camera {
 		goalPosition.y = player.getY() + player.getHeight()/2 - Main.SCREEN_HEIGHT/2 + offsetY;
 	}
 	
+	/**
+	 * Makes the previous position the current one, so there is no movement left to interpolate
+	 */
+	public void savePreviousPosition() {
+		previousPosition.x = position.x;
+		previousPosition.y = position.y;
+	}
+	
 	//used for debugging
 	public void draw (Graphics g) {
 		g.setColor(Color.RED);
@@ -93,6 +104,8 @@ public class Camera {
 		
 		position.x = goalPosition.x;
 		position.y = goalPosition.y;
+		previousPosition.x = position.x;
+		previousPosition.y = position.y;
 	}
 	
 	public boolean isVisibleOnCamera(float x, float y, int width, int height) {
@@ -100,6 +113,39 @@ public class Camera {
 		return false;
 	}
 	
+	/**
+	 * The visible range of a grid of tiles, so renderers only have to loop over the visible cells.
+	 * The range is based on the render position in whole pixels, the way the graphics are translated when drawing,
+	 * and is not clamped to a map: it can start below 0 or end after the last column.
+	 * @param tileSize Size of one tile in pixels
+	 * @param alpha How far (0 to 1) the frame is between the last and the current position of the camera
+	 * @return The first column with at least one visible pixel
+	 */
+	public int getFirstVisibleCol(int tileSize, float alpha) {
+		return Math.floorDiv((int) getRenderX(alpha), tileSize);
+	}
+	
+	/**
+	 * @return The last column with at least one visible pixel, see getFirstVisibleCol
+	 */
+	public int getLastVisibleCol(int tileSize, float alpha) {
+		return Math.floorDiv((int) getRenderX(alpha) + width - 1, tileSize);
+	}
+	
+	/**
+	 * @return The first row with at least one visible pixel, see getFirstVisibleCol
+	 */
+	public int getFirstVisibleRow(int tileSize, float alpha) {
+		return Math.floorDiv((int) getRenderY(alpha), tileSize);
+	}
+	
+	/**
+	 * @return The last row with at least one visible pixel, see getFirstVisibleCol
+	 */
+	public int getLastVisibleRow(int tileSize, float alpha) {
+		return Math.floorDiv((int) getRenderY(alpha) + height - 1, tileSize);
+	}
+	
 	//--------------------------------Getters
 	public void setX(float x) {
 		position.x = x;
@@ -116,4 +162,28 @@ public class Camera {
 	public float getY() {
 		return position.y;
 	}
+	
+	public int getWidth() {
+		return width;
+	}
+	
+	public int getHeight() {
+		return height;
+	}
+	
+	public float getPreviousX() {
+		return previousPosition.x;
+	}
+	
+	public float getPreviousY() {
+		return previousPosition.y;
+	}
+	
+	public float getRenderX(float alpha) {
+		return previousPosition.x + (position.x - previousPosition.x) * alpha;
+	}
+	
+	public float getRenderY(float alpha) {
+		return previousPosition.y + (position.y - previousPosition.y) * alpha;
+	}
 }
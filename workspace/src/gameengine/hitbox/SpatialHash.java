@@ -0,0 +1,155 @@
+package gameengine.hitbox;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid for quick overlap tests between many rectangles.
+ * Items are identified by an id (e.g. their index in an array) and can be inserted into several cells.
+ * All arrays are reused, so clearing and refilling the hash every frame does not allocate once it is big enough.
+ */
+public class SpatialHash {
+
+	private float cellSize;
+
+	private int[] buckets; //first entry of every bucket, -1 if empty
+	private int[] entryItem; //item id of every entry
+	private int[] entryHash; //cell hash of every entry, used to redistribute the entries when growing
+	private int[] entryNext; //next entry in the same bucket, -1 if last
+	private int entryCount;
+
+	private float[] itemX;
+	private float[] itemY;
+	private float[] itemWidth;
+	private float[] itemHeight;
+	private int[] itemStamp; //stamp of the last query that found the item
+	private int stamp;
+
+	private int[] results;
+	private int resultCount;
+
+	public SpatialHash(float cellSize) {
+		this.cellSize = cellSize;
+		this.buckets = new int[64];
+		Arrays.fill(buckets, -1);
+		this.entryItem = new int[64];
+		this.entryHash = new int[64];
+		this.entryNext = new int[64];
+		this.itemX = new float[16];
+		this.itemY = new float[16];
+		this.itemWidth = new float[16];
+		this.itemHeight = new float[16];
+		this.itemStamp = new int[16];
+		this.results = new int[16];
+	}
+
+	public void clear() {
+		Arrays.fill(buckets, -1);
+		entryCount = 0;
+		resultCount = 0;
+	}
+
+	public void insert(int id, RectHitbox hitbox) {
+		insert(id, hitbox.getX(), hitbox.getY(), hitbox.getWidth(), hitbox.getHeight());
+	}
+
+	public void insert(int id, float x, float y, float width, float height) {
+		if(id >= itemX.length) growItems(id + 1);
+		itemX[id] = x;
+		itemY[id] = y;
+		itemWidth[id] = width;
+		itemHeight[id] = height;
+
+		int firstCellX = cell(x), lastCellX = cell(x + width);
+		int firstCellY = cell(y), lastCellY = cell(y + height);
+		for (int cellX = firstCellX; cellX <= lastCellX; cellX++) {
+			for (int cellY = firstCellY; cellY <= lastCellY; cellY++) {
+				if(entryCount == entryItem.length) growEntries();
+				int hash = hash(cellX, cellY);
+				int bucket = hash & (buckets.length - 1);
+				entryItem[entryCount] = id;
+				entryHash[entryCount] = hash;
+				entryNext[entryCount] = buckets[bucket];
+				buckets[bucket] = entryCount;
+				entryCount++;
+			}
+		}
+	}
+
+	/**
+	 * Finds all items intersecting the hitbox.
+	 * @return The number of items found, see getResult(int)
+	 */
+	public int query(RectHitbox hitbox) {
+		return query(hitbox.getX(), hitbox.getY(), hitbox.getWidth(), hitbox.getHeight());
+	}
+
+	public int query(float x, float y, float width, float height) {
+		resultCount = 0;
+		stamp++;
+		if(entryCount == 0) return 0;
+
+		int firstCellX = cell(x), lastCellX = cell(x + width);
+		int firstCellY = cell(y), lastCellY = cell(y + height);
+		for (int cellX = firstCellX; cellX <= lastCellX; cellX++) {
+			for (int cellY = firstCellY; cellY <= lastCellY; cellY++) {
+				int entry = buckets[hash(cellX, cellY) & (buckets.length - 1)];
+				while(entry != -1) {
+					int id = entryItem[entry];
+					entry = entryNext[entry];
+					if(itemStamp[id] == stamp) continue; //already found in another cell
+					itemStamp[id] = stamp;
+					//Same test as RectHitbox.isIntersecting
+					if(x < itemX[id] + itemWidth[id] && x + width > itemX[id] && y < itemY[id] + itemHeight[id] && y + height > itemY[id]) {
+						if(resultCount == results.length) results = Arrays.copyOf(results, results.length * 2);
+						results[resultCount++] = id;
+					}
+				}
+			}
+		}
+		//Results are sorted by id so callers handle them in the same order as a linear scan would
+		Arrays.sort(results, 0, resultCount);
+		return resultCount;
+	}
+
+	private int cell(float coordinate) {
+		return (int) Math.floor(coordinate / cellSize);
+	}
+
+	private static int hash(int cellX, int cellY) {
+		return (cellX * 73856093) ^ (cellY * 19349663);
+	}
+
+	private void growItems(int minSize) {
+		int size = Math.max(minSize, itemX.length * 2);
+		itemX = Arrays.copyOf(itemX, size);
+		itemY = Arrays.copyOf(itemY, size);
+		itemWidth = Arrays.copyOf(itemWidth, size);
+		itemHeight = Arrays.copyOf(itemHeight, size);
+		itemStamp = Arrays.copyOf(itemStamp, size);
+	}
+
+	private void growEntries() {
+		int size = entryItem.length * 2;
+		entryItem = Arrays.copyOf(entryItem, size);
+		entryHash = Arrays.copyOf(entryHash, size);
+		entryNext = Arrays.copyOf(entryNext, size);
+
+		//Keep about one bucket per entry, relinking the existing entries into the bigger table
+		buckets = new int[size];
+		Arrays.fill(buckets, -1);
+		for (int entry = 0; entry < entryCount; entry++) {
+			int bucket = entryHash[entry] & (buckets.length - 1);
+			entryNext[entry] = buckets[bucket];
+			buckets[bucket] = entry;
+		}
+	}
+
+	//-------------------------------------------------------------Getters
+	public int getResult(int index) {
+		return results[index];
+	}
+
+	public int size() {
+		return entryCount;
+	}
+}
@@ -3,6 +3,9 @@
  */
 package gameengine.loaders;
 
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -30,4 +33,49 @@ public final class ImageLoader {
 		BufferedImage image = ImageIO.read(source);
 		return image;
 	}
+	
+	/**
+	 * Creates an empty image in the format of the screen, which Java2D can keep in video memory
+	 * @param transparency Transparency.OPAQUE, BITMASK or TRANSLUCENT
+	 * @return The image, a plain RGB or ARGB image when there is no screen (headless)
+	 */
+	public static BufferedImage createCompatibleImage(int width, int height, int transparency) {
+		if(GraphicsEnvironment.isHeadless()) {
+			return new BufferedImage(width, height, transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+		}
+		return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+				.createCompatibleImage(width, height, transparency);
+	}
+	
+	/**
+	 * Copies an image into a compatible image, scaled the same way drawImage scales (nearest neighbour).
+	 * Drawing the copy at its own size then is a plain copy instead of a scaled and converted blit.
+	 * @param image The image to copy, can be a sub-image
+	 * @param width The width of the copy
+	 * @param height The height of the copy
+	 * @return The copy, opaque if the image has no transparent pixels
+	 */
+	public static BufferedImage toCompatibleImage(BufferedImage image, int width, int height) {
+		BufferedImage copy = createCompatibleImage(width, height, getTransparency(image));
+		Graphics2D g = copy.createGraphics();
+		g.drawImage(image, 0, 0, width, height, null);
+		g.dispose();
+		return copy;
+	}
+	
+	/**
+	 * @return The transparency the pixels of the image actually use, which can be less than its color model allows
+	 */
+	public static int getTransparency(BufferedImage image) {
+		if(image.getColorModel().getTransparency() == Transparency.OPAQUE) return Transparency.OPAQUE;
+		int transparency = Transparency.OPAQUE;
+		for (int x = 0; x < image.getWidth(); x++) {
+			for (int y = 0; y < image.getHeight(); y++) {
+				int alpha = image.getRGB(x, y) >>> 24;
+				if(alpha != 255 && alpha != 0) return Transparency.TRANSLUCENT;
+				if(alpha == 0) transparency = Transparency.BITMASK;
+			}
+		}
+		return transparency;
+	}
 }
\ No newline at end of file
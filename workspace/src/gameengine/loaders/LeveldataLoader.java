@@ -3,12 +3,14 @@ package gameengine.loaders;
 import java.io.BufferedReader;
 import java.io.FileReader;
 
+import gameengine.profiling.GameEvents;
 import gamelogic.Main;
 import gamelogic.level.LevelData;
 
 public class LeveldataLoader {
 
 	public static LevelData loadLeveldata(String filePath) throws Exception {
+		GameEvents.LevelLoad event = GameEvents.isRecording() ? GameEvents.begin(new GameEvents.LevelLoad()) : null;
 		BufferedReader bufferedReader = new BufferedReader(new FileReader(filePath));
 		
 		int width = Integer.parseInt(bufferedReader.readLine().split("=")[1]);
@@ -31,6 +33,13 @@ public class LeveldataLoader {
 		Mapdata mapdata = new Mapdata(width, height, tileSize, values);
 		LevelData leveldata = new LevelData(mapdata, playerX, playerY);
 		
+		if(event != null && event.shouldCommit()) {
+			event.path = filePath;
+			event.mapWidth = width;
+			event.mapHeight = height;
+			event.tileSize = tileSize;
+			event.commit();
+		}
 		return leveldata;
 	}
 	
@@ -8,11 +8,13 @@ public class Tileset {
 	private Map<String, BufferedImage> images;
 	private Map<Integer, BufferedImage> idImages;
 	private Map<Integer, String> names;
+	private Map<Integer, Map<String, BufferedImage>> scaledImages; //images by name for every size they were asked for
 	
 	public Tileset() {
 		images = new HashMap<String, BufferedImage>();
 		idImages = new HashMap<Integer, BufferedImage>();
 		names = new HashMap<Integer, String>();
+		scaledImages = new HashMap<Integer, Map<String, BufferedImage>>();
 	}
 	
 	public void addImage(String name, Integer id, BufferedImage image) {
@@ -30,6 +32,25 @@ public class Tileset {
 		return images.get(name);
 	}
 	
+	/**
+	 * Returns the image scaled to size x size pixels, so it can be drawn without scaling.
+	 * The scaled image is made on the first request and kept for every further one with the same size.
+	 * @return The scaled image, null if there is no image with this name
+	 */
+	public synchronized BufferedImage getImage(String name, int size) {
+		Map<String, BufferedImage> scaled = scaledImages.get(size);
+		if(scaled == null) {
+			scaled = new HashMap<String, BufferedImage>();
+			scaledImages.put(size, scaled);
+		}
+		BufferedImage image = scaled.get(name);
+		if(image == null && images.containsKey(name)) {
+			image = ImageLoader.toCompatibleImage(images.get(name), size, size);
+			scaled.put(name, image);
+		}
+		return image;
+	}
+	
 	public BufferedImage getImage(Integer in) {
 		return idImages.get(in);
 	}
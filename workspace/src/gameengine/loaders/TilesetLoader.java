@@ -21,7 +21,9 @@ public class TilesetLoader {
 				int id = Integer.parseInt(values[0].trim());
 				int x = Integer.parseInt(values[2].trim());
 				int y = Integer.parseInt(values[3].trim());
-				tileset.addImage(values[1], id, tilesetImage.getSubimage(x * tileSize, y * tileSize, tileSize, tileSize));
+				//A copy of its own instead of a view into the tileset, so Java2D can accelerate it
+				BufferedImage tile = tilesetImage.getSubimage(x * tileSize, y * tileSize, tileSize, tileSize);
+				tileset.addImage(values[1], id, ImageLoader.toCompatibleImage(tile, tileSize, tileSize));
 				
 			}
 			line = bufferedReader.readLine();
@@ -0,0 +1,165 @@
+package gameengine.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Java Flight Recorder events of the game, recorded with -XX:StartFlightRecording like the events of the JVM.
+ * Usage: GameEvents.Tick event = GameEvents.isRecording() ? GameEvents.begin(new GameEvents.Tick()) : null;
+ * and at the end only fill in the fields and commit() it if event != null && event.shouldCommit().
+ * While no recording is running nothing is created, the game loop does not allocate for its events.
+ */
+public final class GameEvents {
+
+	private static volatile boolean recording;
+
+	static {
+		//Does not start the recorder, the listener is told when it is started and about every recording
+		FlightRecorder.addListener(new FlightRecorderListener() {
+			@Override
+			public void recorderInitialized(FlightRecorder recorder) {
+				update(recorder);
+			}
+
+			@Override
+			public void recordingStateChanged(Recording changed) {
+				update(FlightRecorder.getFlightRecorder());
+			}
+		});
+	}
+
+	private GameEvents() {}
+
+	private static void update(FlightRecorder recorder) {
+		boolean running = false;
+		for (Recording r : recorder.getRecordings()) {
+			if(r.getState() == RecordingState.RUNNING) running = true;
+		}
+		recording = running;
+	}
+
+	/**
+	 * @return true while a flight recording is running
+	 */
+	public static boolean isRecording() {
+		return recording;
+	}
+
+	public static <T extends Event> T begin(T event) {
+		event.begin();
+		return event;
+	}
+
+	@Name("platformer.Tick")
+	@Label("Tick")
+	@Category({"Platformer", "Game Loop"})
+	@Description("One fixed simulation step of the level")
+	public static class Tick extends Event {
+		@Label("Map Width")
+		public int mapWidth;
+		@Label("Map Height")
+		public int mapHeight;
+		@Label("Enemies")
+		public int enemies;
+	}
+
+	@Name("platformer.Draw")
+	@Label("Draw")
+	@Category({"Platformer", "Game Loop"})
+	@Description("Drawing the level")
+	public static class Draw extends Event {
+		@Label("Chunks Drawn")
+		@Description("Pre-rendered chunks of the map that were copied to the screen")
+		public int chunksDrawn;
+		@Label("Chunks Rendered")
+		@Description("Chunks that changed and were rendered again")
+		public int chunksRendered;
+		@Label("Overlays Drawn")
+		public int overlaysDrawn;
+		@Label("Enemies")
+		public int enemies;
+	}
+
+	@Name("platformer.CollisionPass")
+	@Label("Collision Pass")
+	@Category({"Platformer", "Collision"})
+	@Description("Moving all enemies and colliding them with the obstacles of the map")
+	public static class CollisionPass extends Event {
+		@Label("Entities")
+		public int entities;
+		@Label("Parallel")
+		public boolean parallel;
+	}
+
+	@Name("platformer.CollisionLayerBuild")
+	@Label("Collision Layer Build")
+	@Category({"Platformer", "Collision"})
+	@Description("Merging the solid cells of the map into the blocks of the collision layer")
+	public static class CollisionLayerBuild extends Event {
+		@Label("Map Width")
+		public int mapWidth;
+		@Label("Map Height")
+		public int mapHeight;
+		@Label("Blocks")
+		public int blocks;
+	}
+
+	@Name("platformer.RestartLevel")
+	@Label("Restart Level")
+	@Category({"Platformer", "Level"})
+	public static class RestartLevel extends Event {
+		@Label("Cells Reset")
+		public int cellsReset;
+		@Label("Enemies")
+		public int enemies;
+	}
+
+	@Name("platformer.LevelLoad")
+	@Label("Level Load")
+	@Category({"Platformer", "Level"})
+	@Description("Reading a map file")
+	public static class LevelLoad extends Event {
+		@Label("Path")
+		public String path;
+		@Label("Map Width")
+		public int mapWidth;
+		@Label("Map Height")
+		public int mapHeight;
+		@Label("Tile Size")
+		public int tileSize;
+	}
+
+	@Name("platformer.WaterSpread")
+	@Label("Water Spread")
+	@Category({"Platformer", "Level"})
+	@Description("The steps of the water floods done in one update")
+	public static class WaterSpread extends Event {
+		@Label("Steps")
+		public int steps;
+		@Label("Cells Touched")
+		public int cellsTouched;
+		@Label("Flowing")
+		@Description("Water is still flowing after this update")
+		public boolean flowing;
+	}
+
+	@Name("platformer.GasSpread")
+	@Label("Gas Spread")
+	@Category({"Platformer", "Level"})
+	@Description("The gas cells processed in one update")
+	public static class GasSpread extends Event {
+		@Label("Cells Processed")
+		public int cellsProcessed;
+		@Label("Cells Touched")
+		public int cellsTouched;
+		@Label("Active Cells")
+		public int activeCells;
+	}
+}
@@ -0,0 +1,79 @@
+package gameengine.profiling;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of durations in ns with a fixed number of buckets, so recording never allocates.
+ * Like an HDR histogram the buckets grow with the values: every power of two is split into
+ * SUB_BUCKETS buckets, which keeps the error of a percentile below 1 / SUB_BUCKETS (about 3%).
+ * Values above MAX_VALUE are counted in the last bucket, the exact maximum is kept separately.
+ */
+public class Histogram {
+
+	public static final int SUB_BUCKET_BITS = 5;
+	public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	public static final int MAX_MAGNITUDE = 40; //highest bit of the largest value, 2^41 ns is about 36 minutes
+	public static final long MAX_VALUE = (1L << (MAX_MAGNITUDE + 1)) - 1;
+
+	private long[] counts = new long[(MAX_MAGNITUDE - SUB_BUCKET_BITS + 2) * SUB_BUCKETS];
+	private long count;
+	private long sum;
+	private long max;
+
+	public void record(long value) {
+		if(value < 0) value = 0;
+		counts[indexOf(Math.min(value, MAX_VALUE))]++;
+		count++;
+		sum += value;
+		if(value > max) max = value;
+	}
+
+	public void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		sum = 0;
+		max = 0;
+	}
+
+	/**
+	 * @param percentile From 0 to 100
+	 * @return The highest value of the bucket the percentile falls into, never more than the maximum
+	 */
+	public long getPercentile(double percentile) {
+		if(count == 0) return 0;
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if(seen >= rank) return Math.min(highestValueOf(i), max);
+		}
+		return max;
+	}
+
+	//Values below SUB_BUCKETS have a bucket each, above the bucket is picked by the highest bits
+	private static int indexOf(long value) {
+		if(value < SUB_BUCKETS) return (int) value;
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+	}
+
+	private static long highestValueOf(int index) {
+		if(index < SUB_BUCKETS) return index;
+		int shift = index / SUB_BUCKETS - 1;
+		long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	//-----------------------------------------------------Getters
+	public long getCount() {
+		return count;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+}
@@ -0,0 +1,39 @@
+package gameengine.profiling;
+
+/**
+ * Times one phase of a frame, every start()-stop() pair is recorded into the histogram of the phase.
+ * The timer is reused for every measurement, phases are not timed recursively.
+ * When the Profiler is disabled start() and stop() only check a flag.
+ */
+public class PhaseTimer {
+
+	private String name;
+	private Histogram histogram = new Histogram();
+	private long start;
+	private boolean running;
+
+	PhaseTimer(String name) {
+		this.name = name;
+	}
+
+	public void start() {
+		if(!Profiler.isEnabled()) return;
+		start = System.nanoTime();
+		running = true;
+	}
+
+	public void stop() {
+		if(!running) return;
+		histogram.record(System.nanoTime() - start);
+		running = false;
+	}
+
+	//-----------------------------------------------------Getters
+	public String getName() {
+		return name;
+	}
+
+	public Histogram getHistogram() {
+		return histogram;
+	}
+}
@@ -0,0 +1,91 @@
+package gameengine.profiling;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Frame-time instrumentation: the phases of the game loop and of the level each have a PhaseTimer,
+ * which only records while the profiler is enabled. The histograms of all phases can be printed
+ * or written as CSV or JSON, dumpOnExit does this when the game is closed.
+ */
+public final class Profiler {
+
+	private static boolean enabled;
+	private static List<PhaseTimer> timers = new ArrayList<>();
+
+	//Phases of GameBase, the sub-class adds its own
+	public static final PhaseTimer FRAME = timer("frame");
+	public static final PhaseTimer UPDATE = timer("update");
+	public static final PhaseTimer DRAW = timer("draw");
+	public static final PhaseTimer SHOW = timer("show");
+
+	/**
+	 * Creates the timer of a phase, the phases are reported in the order they are created
+	 */
+	public static synchronized PhaseTimer timer(String name) {
+		PhaseTimer timer = new PhaseTimer(name);
+		timers.add(timer);
+		return timer;
+	}
+
+	public static void setEnabled(boolean enabled) {
+		Profiler.enabled = enabled;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static synchronized void reset() {
+		for (PhaseTimer timer : timers) {
+			timer.getHistogram().reset();
+		}
+	}
+
+	/**
+	 * Enables the profiler and writes its results when the JVM exits
+	 * @param path Where to write the results, as JSON if it ends with .json, as CSV otherwise
+	 */
+	public static void dumpOnExit(String path) {
+		setEnabled(true);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			try (PrintWriter out = new PrintWriter(path)) {
+				if(path.endsWith(".json")) writeJson(out);
+				else writeCsv(out);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			PrintWriter console = new PrintWriter(System.out);
+			writeCsv(console);
+		}));
+	}
+
+	/**
+	 * Writes count, mean, p50, p99 and max of every phase in ns
+	 */
+	public static synchronized void writeCsv(PrintWriter out) {
+		out.println("phase,count,mean_ns,p50_ns,p99_ns,max_ns");
+		for (PhaseTimer timer : timers) {
+			Histogram h = timer.getHistogram();
+			out.printf(Locale.ROOT, "%s,%d,%.1f,%d,%d,%d%n", timer.getName(), h.getCount(), h.getMean(),
+					h.getPercentile(50), h.getPercentile(99), h.getMax());
+		}
+		out.flush();
+	}
+
+	public static synchronized void writeJson(PrintWriter out) {
+		out.println("[");
+		for (int i = 0; i < timers.size(); i++) {
+			PhaseTimer timer = timers.get(i);
+			Histogram h = timer.getHistogram();
+			out.printf(Locale.ROOT, "  {\"phase\": \"%s\", \"count\": %d, \"meanNs\": %.1f, \"p50Ns\": %d, \"p99Ns\": %d, \"maxNs\": %d}%s%n",
+					timer.getName(), h.getCount(), h.getMean(), h.getPercentile(50), h.getPercentile(99), h.getMax(),
+					i < timers.size() - 1 ? "," : "");
+		}
+		out.println("]");
+		out.flush();
+	}
+}
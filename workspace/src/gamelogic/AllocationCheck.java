@@ -0,0 +1,74 @@
+package gamelogic;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import gameengine.loaders.LeveldataLoader;
+import gamelogic.level.Level;
+import gamelogic.player.PlayerInput;
+import gamelogic.player.ScriptedInput;
+
+/**
+ * Checks that a level updates and draws without allocating once it is warmed up, since the garbage collector
+ * pauses the game on small machines. Exits with status 1 if any steady-state tick allocated.
+ * Usage: AllocationCheck <map file> [ticks] [script], see ScriptedInput for the script format.
+ * The script must keep the player alive for all ticks, a restart creates a new player and camera.
+ */
+public class AllocationCheck {
+
+	public static final String DEFAULT_SCRIPT = "-:1"; //standing still, so the player survives on every map
+	public static final int WARMUP_TICKS = 20000; //enough for the JIT to compile the update and draw paths
+
+	public static void main(String[] args) throws Exception {
+		if(args.length < 1) {
+			System.out.println("Usage: AllocationCheck <map file> [ticks] [script]");
+			System.exit(2);
+		}
+		System.setProperty("java.awt.headless", "true");
+		int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+		ScriptedInput input = new ScriptedInput(args.length > 2 ? args[2] : DEFAULT_SCRIPT);
+
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if(!(threads instanceof com.sun.management.ThreadMXBean)) {
+			System.out.println("This JVM cannot measure allocations");
+			System.exit(2);
+		}
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+		long threadId = Thread.currentThread().getId();
+
+		GameResources.load();
+		Level level = new Level(LeveldataLoader.loadLeveldata(args[0]));
+		level.setBackground(Main.BACKGROUND);
+		PlayerInput.setSource(input);
+		BufferedImage frame = new BufferedImage(Main.SCREEN_WIDTH, Main.SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = frame.createGraphics();
+
+		run(level, input, g, WARMUP_TICKS);
+		long allocatedBefore = allocations.getThreadAllocatedBytes(threadId);
+		run(level, input, g, ticks);
+		long allocated = allocations.getThreadAllocatedBytes(threadId) - allocatedBefore;
+		g.dispose();
+
+		if(!level.isActive()) {
+			System.out.println("FAILED: the player died or won, the ticks were not steady-state");
+			System.exit(1);
+		}
+		System.out.printf("Allocated: %d bytes in %d ticks (%.2f bytes/tick)%n", allocated, ticks, (double) allocated / ticks);
+		if(allocated > 0) {
+			System.out.println("FAILED: steady-state ticks allocate");
+			System.exit(1);
+		}
+		System.out.println("OK");
+	}
+
+	//Updates and draws the level like one frame per tick of the game, without restarting it
+	private static void run(Level level, ScriptedInput input, Graphics2D g, int ticks) {
+		for (int i = 0; i < ticks && level.isActive(); i++) {
+			input.nextTick();
+			level.update(1f / HeadlessRunner.TICK_RATE);
+			level.draw(g, 0.5f);
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package gamelogic;
+
+import gamelogic.level.LevelSnapshot;
+
+/**
+ * Everything Main draws in one frame, for drawing on the render thread, see Main.writeSnapshot
+ */
+public class GameSnapshot {
+
+	final LevelSnapshot level = new LevelSnapshot();
+
+	LevelCompleteBar levelCompleteBar;
+	float levelComplete;
+
+	boolean transitionActive;
+	float transitionX;
+	float transitionY;
+	final String[] transitionText = new String[2];
+}
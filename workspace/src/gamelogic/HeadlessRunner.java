@@ -0,0 +1,96 @@
+package gamelogic;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import gameengine.loaders.LeveldataLoader;
+import gamelogic.level.Level;
+import gamelogic.level.LevelData;
+import gamelogic.player.InputReplay;
+import gamelogic.player.InputSource;
+import gamelogic.player.PlayerInput;
+import gamelogic.player.ScriptedInput;
+
+/**
+ * Runs a level without a window as fast as possible, with the input coming from a script or a recording.
+ * The level is simulated in the same fixed steps as in the game and restarted whenever the player dies or wins.
+ * Usage: HeadlessRunner <map file> [ticks] [script | recording file], see ScriptedInput for the script format
+ * and InputRecorder for recordings. A script starts again with every restart, a recording just goes on,
+ * the same way it was recorded by the game. With a recording and no ticks the whole recording is played.
+ */
+public class HeadlessRunner {
+
+	public static final String DEFAULT_SCRIPT = "R:90 RJ:15 R:60 -:10 LJ:15 L:30 RJ:20 R:120";
+	public static final int TICK_RATE = 60; //same as GameBase
+
+	private Level level;
+	private InputSource input;
+	private int deaths;
+	private int wins;
+
+	public HeadlessRunner(LevelData leveldata, InputSource input) {
+		this.level = new Level(leveldata);
+		this.input = input;
+	}
+
+	/**
+	 * Simulates the level for the given number of ticks
+	 */
+	public void run(int ticks) {
+		PlayerInput.setSource(input);
+		try {
+			for (int i = 0; i < ticks; i++) {
+				input.nextTick();
+				level.update(1f / TICK_RATE);
+				if(!level.isActive()) {
+					if(level.isPlayerDead()) deaths++;
+					if(level.isPlayerWin()) wins++;
+					level.restartLevel();
+					if(input instanceof ScriptedInput) ((ScriptedInput) input).reset();
+				}
+			}
+		} finally {
+			PlayerInput.setSource(null);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		if(args.length < 1) {
+			System.out.println("Usage: HeadlessRunner <map file> [ticks] [script | recording file]");
+			return;
+		}
+		System.setProperty("java.awt.headless", "true");
+		String script = args.length > 2 ? args[2] : DEFAULT_SCRIPT;
+		InputSource input;
+		int ticks;
+		if(new File(script).isFile()) {
+			InputReplay replay = new InputReplay(script);
+			input = replay;
+			ticks = args.length > 1 ? Integer.parseInt(args[1]) : replay.getTotalTicks();
+		} else {
+			input = new ScriptedInput(script);
+			ticks = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+		}
+
+		GameResources.load();
+		LevelData leveldata = LeveldataLoader.loadLeveldata(args[0]);
+		HeadlessRunner runner = new HeadlessRunner(leveldata, input);
+
+		//Allocations are only measured if the JVM supports it
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		com.sun.management.ThreadMXBean allocations = threads instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) threads : null;
+		long threadId = Thread.currentThread().getId();
+
+		long allocatedBefore = allocations != null ? allocations.getThreadAllocatedBytes(threadId) : 0;
+		long start = System.nanoTime();
+		runner.run(ticks);
+		long time = System.nanoTime() - start;
+		long allocatedAfter = allocations != null ? allocations.getThreadAllocatedBytes(threadId) : 0;
+
+		System.out.println("Map: " + args[0] + " (" + leveldata.getMapdata().getWidth() + "x" + leveldata.getMapdata().getHeight() + " tiles)");
+		System.out.printf("Ticks: %d in %.3f s = %.0f ticks/s%n", ticks, time / 1e9, ticks / (time / 1e9));
+		System.out.println("Restarts: " + runner.deaths + " deaths, " + runner.wins + " wins");
+		if(allocations != null) System.out.printf("Allocated: %.1f bytes/tick%n", (double) (allocatedAfter - allocatedBefore) / ticks);
+	}
+}
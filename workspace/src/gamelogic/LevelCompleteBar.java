@@ -33,10 +33,21 @@ public class LevelCompleteBar {
 	}
 
 	public void draw(Graphics g) {
+		draw(g, levelComplete);
+	}
+
+	/**
+	 * Draws the bar with the given progress instead of the current one, e.g. from a snapshot
+	 */
+	public void draw(Graphics g, float levelComplete) {
 		g.setColor(Color.BLACK);
 		g.drawRect(x, y, width, height);
 		
 		g.fillOval((int)(x + levelComplete * width), y, height, height);
 	}
 
+	public float getLevelComplete() {
+		return levelComplete;
+	}
+
 }
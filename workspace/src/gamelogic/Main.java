@@ -3,22 +3,31 @@ package gamelogic;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.GraphicsEnvironment;
 import java.awt.Toolkit;
 import java.awt.event.KeyEvent;
+import java.io.IOException;
 
 import gameengine.GameBase;
+import gameengine.SnapshotRenderer;
 import gameengine.graphics.MyWindow;
 import gameengine.input.KeyboardInputManager;
 import gameengine.loaders.LeveldataLoader;
+import gameengine.profiling.Profiler;
 import gamelogic.level.Level;
 import gamelogic.level.LevelData;
+import gamelogic.level.LevelView;
 import gamelogic.level.PlayerDieListener;
 import gamelogic.level.PlayerWinListener;
+import gamelogic.player.InputRecorder;
+import gamelogic.player.InputReplay;
+import gamelogic.player.PlayerInput;
 
-public class Main extends GameBase implements PlayerDieListener, PlayerWinListener, ScreenTransitionListener{
-	public static final int SCREEN_WIDTH = (int)Toolkit.getDefaultToolkit().getScreenSize().getWidth()-200;
-	public static final int SCREEN_HEIGHT = (int)Toolkit.getDefaultToolkit().getScreenSize().getHeight()-200;
+public class Main extends GameBase implements PlayerDieListener, PlayerWinListener, ScreenTransitionListener, SnapshotRenderer<GameSnapshot>{
+	public static final int SCREEN_WIDTH = (int)getScreenSize().getWidth()-200;
+	public static final int SCREEN_HEIGHT = (int)getScreenSize().getHeight()-200;
 	public static final boolean DEBUGGING = false;
+	public static final Color BACKGROUND = Color.WHITE;
 
 	private ScreenTransition screenTransition = new ScreenTransition();
 
@@ -33,8 +42,42 @@ public class Main extends GameBase implements PlayerDieListener, PlayerWinListen
 	
 	private LevelCompleteBar levelCompleteBar;
 
-	public static void main(String[] args) {
+	private LevelView levelView = new LevelView(BACKGROUND); //draws the level on the render thread
+
+	/**
+	 * Arguments: "-record <file>" saves the input of the session, "-replay <file>" plays a saved session again.
+	 * Only the ticks the level is updated are recorded, so a recording can also be played by the HeadlessRunner.
+	 * "-profile <file>" times the phases of every frame and writes their histograms (CSV or .json) on exit.
+	 * "-renderThread" updates the game on its own thread and draws snapshots of it on the main thread.
+	 */
+	public static void main(String[] args) throws IOException {
+		boolean renderThread = false;
+		for (int i = 0; i < args.length; i++) {
+			if(args[i].equals("-renderThread")) {
+				renderThread = true;
+			} else if(i + 1 == args.length) {
+				break;
+			} else if(args[i].equals("-record")) {
+				InputRecorder recorder = new InputRecorder(PlayerInput.KEYBOARD, args[++i]);
+				PlayerInput.setSource(recorder);
+				//The game is left with System.exit, the last run is written on the way out
+				Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+					try {
+						recorder.close();
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+				}));
+			} else if(args[i].equals("-replay")) {
+				PlayerInput.setSource(new InputReplay(args[++i]));
+			} else if(args[i].equals("-profile")) {
+				Profiler.dumpOnExit(args[++i]);
+			} else {
+				i++; //unknown option, skipping its value
+			}
+		}
 		Main main = new Main();
+		if(renderThread) main.setSnapshotRenderer(main);
 		main.start("Eden Jump", SCREEN_WIDTH, SCREEN_HEIGHT);
 	}
 
@@ -52,6 +95,7 @@ public class Main extends GameBase implements PlayerDieListener, PlayerWinListen
 			e.printStackTrace();
 		}
 		currentLevel = new Level(levels[currentLevelIndex]);
+		currentLevel.setBackground(BACKGROUND);
 
 		currentLevel.addPlayerDieListener(this);
 		currentLevel.addPlayerWinListener(this);
@@ -113,6 +157,7 @@ public class Main extends GameBase implements PlayerDieListener, PlayerWinListen
 		if(currentLevelIndex < levels.length-1) {
 			currentLevelIndex++;
 			currentLevel = new Level(levels[currentLevelIndex]);
+			currentLevel.setBackground(BACKGROUND);
 
 			currentLevel.addPlayerDieListener(this);
 			currentLevel.addPlayerWinListener(this);
@@ -125,7 +170,10 @@ public class Main extends GameBase implements PlayerDieListener, PlayerWinListen
 		if(KeyboardInputManager.isKeyDown(KeyEvent.VK_N)) init();
 		if(KeyboardInputManager.isKeyDown(KeyEvent.VK_ESCAPE)) System.exit(0);
 
-		if (active) currentLevel.update(tslf);
+		if (active) {
+			PlayerInput.getSource().nextTick();
+			currentLevel.update(tslf);
+		}
 
 		screenTransition.update(tslf);
 		
@@ -133,11 +181,11 @@ public class Main extends GameBase implements PlayerDieListener, PlayerWinListen
 	}
 
 	@Override
-	public void draw(Graphics g) {
+	public void draw(Graphics g, float alpha) {
 		
 		drawBackground(g);
 		//Camera-translate
-		currentLevel.draw(g);
+		currentLevel.draw(g, alpha);
 		//- Camera-translate
 		
 		levelCompleteBar.draw(g);
@@ -145,8 +193,45 @@ public class Main extends GameBase implements PlayerDieListener, PlayerWinListen
 		screenTransition.draw(g);
 	}
 
+	//-----------------------------------------------Snapshots, only used with a render thread
+	@Override
+	public GameSnapshot createSnapshot() {
+		return new GameSnapshot();
+	}
+
+	@Override
+	public void writeSnapshot(GameSnapshot snapshot) {
+		currentLevel.writeSnapshot(snapshot.level);
+
+		snapshot.levelCompleteBar = levelCompleteBar;
+		snapshot.levelComplete = levelCompleteBar.getLevelComplete();
+
+		snapshot.transitionActive = screenTransition.isActive();
+		snapshot.transitionX = screenTransition.getX();
+		snapshot.transitionY = screenTransition.getY();
+		System.arraycopy(screenTransition.getText(), 0, snapshot.transitionText, 0, snapshot.transitionText.length);
+	}
+
+	@Override
+	public void drawSnapshot(Graphics g, GameSnapshot snapshot, float alpha) {
+		drawBackground(g);
+		levelView.draw(g, snapshot.level, alpha);
+
+		snapshot.levelCompleteBar.draw(g, snapshot.levelComplete);
+
+		if(snapshot.transitionActive) screenTransition.draw(g, snapshot.transitionX, snapshot.transitionY, snapshot.transitionText);
+	}
+
+	/**
+	 * @return The size of the screen, or of a 1920x1080 screen when there is none (headless)
+	 */
+	private static Dimension getScreenSize() {
+		if(GraphicsEnvironment.isHeadless()) return new Dimension(1920, 1080);
+		return Toolkit.getDefaultToolkit().getScreenSize();
+	}
+
 	public void drawBackground(Graphics g) {
-		g.setColor(Color.WHITE);
+		g.setColor(BACKGROUND);
 		g.fillRect(0, 0-MyWindow.getInsetY(), SCREEN_WIDTH, SCREEN_HEIGHT+MyWindow.getInsetY()*2);
 	}
 }
@@ -70,22 +70,27 @@ public class ScreenTransition {
 	}
 
 	public void draw(Graphics g) {
-		if(isActive) {
-			g.translate((int)position.x, (int)position.y);
-			
-			g.setColor(Color.BLACK);
-			g.fillRect(0, 0-MyWindow.getInsetY(), (int)width, (int)height+MyWindow.getInsetY()*2);
+		if(isActive) draw(g, position.x, position.y, text);
+	}
 
-			if(text != null) {
-				g.setColor(Color.WHITE);
+	/**
+	 * Draws an active transition at the given position with the given text, e.g. from a snapshot
+	 */
+	public void draw(Graphics g, float x, float y, String[] text) {
+		g.translate((int)x, (int)y);
+		
+		g.setColor(Color.BLACK);
+		g.fillRect(0, 0-MyWindow.getInsetY(), (int)width, (int)height+MyWindow.getInsetY()*2);
 
-				for (int i = 0; i < text.length; i++) {
-					MyGraphics.drawCenteredString(g, text[i], textBox[i], font);
-				}
+		if(text != null) {
+			g.setColor(Color.WHITE);
+
+			for (int i = 0; i < text.length; i++) {
+				MyGraphics.drawCenteredString(g, text[i], textBox[i], font);
 			}
-			
-			g.translate((int)-position.x, (int)-position.y);
 		}
+		
+		g.translate((int)-x, (int)-y);
 	}
 
 	public void activate() {
@@ -111,6 +116,23 @@ public class ScreenTransition {
 		activate();
 	}
 
+	//------------------------Getters
+	public boolean isActive() {
+		return isActive;
+	}
+
+	public float getX() {
+		return position.x;
+	}
+
+	public float getY() {
+		return position.y;
+	}
+
+	public String[] getText() {
+		return text;
+	}
+
 	//------------------------Listener
 	public void throwTransitionActivationFinishedEvent() {
 		for (ScreenTransitionListener screenTransitionListener : listeners) {
@@ -0,0 +1,174 @@
+package gamelogic.benchmark;
+
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measures benchmarks the way JMH does in its simplest mode: a few warmup iterations that are thrown away,
+ * then measurement iterations of a fixed time, each giving the average time per operation.
+ * The results are printed as a table and can be written as CSV or JSON to compare them between commits.
+ */
+public class BenchmarkRunner {
+
+	/**
+	 * One operation of a benchmark, returns a value that depends on the work so it cannot be optimized away
+	 */
+	public interface Operation {
+		public long run() throws Exception;
+	}
+
+	/**
+	 * Puts the state back after each iteration, outside of the measured time
+	 */
+	public interface Reset {
+		public void run() throws Exception;
+	}
+
+	/**
+	 * Prepares the state before each operation, outside of the measured time and allocations
+	 */
+	public interface Setup {
+		public void run() throws Exception;
+	}
+
+	public static class Result {
+		public final String benchmark;
+		public final int width;
+		public final int height;
+		public final int entities;
+		public final long operations;
+		public final double nsPerOp; //mean of the iterations
+		public final double nsError; //standard deviation of the iterations
+		public final double bytesPerOp; //-1 if allocations cannot be measured
+
+		public Result(String benchmark, int width, int height, int entities, long operations, double nsPerOp, double nsError, double bytesPerOp) {
+			this.benchmark = benchmark;
+			this.width = width;
+			this.height = height;
+			this.entities = entities;
+			this.operations = operations;
+			this.nsPerOp = nsPerOp;
+			this.nsError = nsError;
+			this.bytesPerOp = bytesPerOp;
+		}
+	}
+
+	private int warmupIterations = 3;
+	private int measurementIterations = 5;
+	private long iterationTime = 500_000_000; //in ns
+	private List<Result> results = new ArrayList<>();
+	private long sink; //results of all operations, printed at the end so the JIT has to compute them
+
+	private com.sun.management.ThreadMXBean allocations;
+
+	public BenchmarkRunner() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if(threads instanceof com.sun.management.ThreadMXBean) allocations = (com.sun.management.ThreadMXBean) threads;
+	}
+
+	public Result run(String benchmark, int width, int height, int entities, Operation operation, Reset reset) throws Exception {
+		return run(benchmark, width, height, entities, null, operation, reset);
+	}
+
+	/**
+	 * @param setup Runs before every operation, null if the operations need no setup
+	 */
+	public Result run(String benchmark, int width, int height, int entities, Setup setup, Operation operation, Reset reset) throws Exception {
+		for (int i = 0; i < warmupIterations; i++) {
+			iteration(setup, operation, reset, null);
+		}
+		double[] times = new double[measurementIterations];
+		long[] counts = new long[2]; //operations and allocated bytes of all measurement iterations
+		for (int i = 0; i < measurementIterations; i++) {
+			times[i] = iteration(setup, operation, reset, counts);
+		}
+
+		double mean = 0;
+		for (double time : times) mean += time;
+		mean /= times.length;
+		double variance = 0;
+		for (double time : times) variance += (time - mean) * (time - mean);
+		double error = times.length > 1 ? Math.sqrt(variance / (times.length - 1)) : 0;
+		double bytes = allocations != null ? (double) counts[1] / counts[0] : -1;
+
+		Result result = new Result(benchmark, width, height, entities, counts[0], mean, error, bytes);
+		results.add(result);
+		System.out.printf(Locale.ROOT, "%-16s %5dx%-4d %6d entities  %14.1f +- %10.1f ns/op  %10.1f B/op%n", benchmark, width, height, entities, mean, error, bytes);
+		return result;
+	}
+
+	//Runs the operation until the iteration time is over, returns the average time per operation in ns
+	private double iteration(Setup setup, Operation operation, Reset reset, long[] counts) throws Exception {
+		long threadId = Thread.currentThread().getId();
+		long allocatedBefore = allocations != null ? allocations.getThreadAllocatedBytes(threadId) : 0;
+		long operations = 0;
+		long setupTime = 0; //time and allocations of the setups, taken out of the measurement
+		long setupAllocated = 0;
+		long start = System.nanoTime();
+		long time;
+		do {
+			if(setup != null) {
+				long setupStart = System.nanoTime();
+				long setupAllocatedBefore = allocations != null ? allocations.getThreadAllocatedBytes(threadId) : 0;
+				setup.run();
+				if(allocations != null) setupAllocated += allocations.getThreadAllocatedBytes(threadId) - setupAllocatedBefore;
+				setupTime += System.nanoTime() - setupStart;
+			}
+			sink += operation.run();
+			operations++;
+			time = System.nanoTime() - start - setupTime;
+		} while (time < iterationTime);
+		long allocated = allocations != null ? allocations.getThreadAllocatedBytes(threadId) - allocatedBefore - setupAllocated : 0;
+		if(reset != null) reset.run();
+
+		if(counts != null) {
+			counts[0] += operations;
+			counts[1] += allocated;
+		}
+		return (double) time / operations;
+	}
+
+	public void writeCsv(PrintWriter out) {
+		out.println("benchmark,width,height,entities,operations,ns_per_op,ns_error,bytes_per_op");
+		for (Result r : results) {
+			out.printf(Locale.ROOT, "%s,%d,%d,%d,%d,%.1f,%.1f,%.1f%n", r.benchmark, r.width, r.height, r.entities, r.operations, r.nsPerOp, r.nsError, r.bytesPerOp);
+		}
+		out.flush();
+	}
+
+	public void writeJson(PrintWriter out) {
+		out.println("[");
+		for (int i = 0; i < results.size(); i++) {
+			Result r = results.get(i);
+			out.printf(Locale.ROOT, "  {\"benchmark\": \"%s\", \"width\": %d, \"height\": %d, \"entities\": %d, \"operations\": %d, \"nsPerOp\": %.1f, \"nsError\": %.1f, \"bytesPerOp\": %.1f}%s%n",
+					r.benchmark, r.width, r.height, r.entities, r.operations, r.nsPerOp, r.nsError, r.bytesPerOp, i < results.size() - 1 ? "," : "");
+		}
+		out.println("]");
+		out.flush();
+	}
+
+	public void setWarmupIterations(int warmupIterations) {
+		this.warmupIterations = warmupIterations;
+	}
+
+	public void setMeasurementIterations(int measurementIterations) {
+		this.measurementIterations = measurementIterations;
+	}
+
+	public void setIterationTime(long ms) {
+		this.iterationTime = ms * 1_000_000;
+	}
+
+	//-----------------------------------------------------Getters
+	public List<Result> getResults() {
+		return results;
+	}
+
+	public long getSink() {
+		return sink;
+	}
+}
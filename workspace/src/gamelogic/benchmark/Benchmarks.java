@@ -0,0 +1,302 @@
+package gamelogic.benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import gameengine.PhysicsObject;
+import gameengine.loaders.ImageLoader;
+import gameengine.loaders.LeveldataLoader;
+import gameengine.loaders.Mapdata;
+import gameengine.loaders.TilesetLoader;
+import gamelogic.GameResources;
+import gamelogic.HeadlessRunner;
+import gamelogic.Main;
+import gamelogic.level.GasDiffusion;
+import gamelogic.level.Level;
+import gamelogic.level.LevelData;
+import gamelogic.level.WaterFlow;
+import gamelogic.player.PlayerInput;
+import gamelogic.player.ScriptedInput;
+import gamelogic.tiledMap.Map;
+
+/**
+ * Benchmarks of the hot paths of the game, run on generated levels of every size and entity count.
+ * Usage: Benchmarks [-sizes 100x20,400x40] [-entities 0,100] [-only levelUpdate,draw] [-quick] [-out results.csv|results.json]
+ * Entities are enemies, except for collisionMatrix where they are Physics Objects spread over the map.
+ */
+public class Benchmarks {
+
+	public static final String[] BENCHMARKS = {"collisionMatrix", "levelUpdate", "restartLevel", "draw", "loadLeveldata", "loadTileset", "waterSpread", "gasSpread"};
+
+	private static final int GAS_UPDATES = 600; //updates of gas per operation, 10 seconds of the game
+
+	private BenchmarkRunner runner;
+	private List<String> selected;
+
+	public Benchmarks(BenchmarkRunner runner, List<String> selected) {
+		this.runner = runner;
+		this.selected = selected;
+	}
+
+	/**
+	 * Runs every selected benchmark on a level of the given size
+	 */
+	public void run(int width, int height, int entities) throws Exception {
+		LevelData leveldata = generateLevel(width, height, entities);
+
+		if(selected.contains("collisionMatrix")) {
+			Level level = new Level(leveldata);
+			PhysicsObject[] objects = new PhysicsObject[Math.max(1, entities)];
+			for (int i = 0; i < objects.length; i++) {
+				//Spread over the map, some in the air and some on the ground
+				float x = (i * 7919L % width) * (float) leveldata.getTileSize();
+				float y = (height - 2 - i % 4) * (float) leveldata.getTileSize();
+				objects[i] = new PhysicsObject(x, y, leveldata.getTileSize(), leveldata.getTileSize(), level);
+			}
+			runner.run("collisionMatrix", width, height, entities, () -> {
+				long hits = 0;
+				for (PhysicsObject object : objects) {
+					object.updateCollisionMatrix(1f / HeadlessRunner.TICK_RATE);
+					if(object.getCollisionMatrix()[PhysicsObject.BOT] != null) hits++;
+				}
+				return hits;
+			}, null);
+		}
+
+		if(selected.contains("levelUpdate")) {
+			Level level = new Level(leveldata);
+			ScriptedInput input = new ScriptedInput(HeadlessRunner.DEFAULT_SCRIPT);
+			PlayerInput.setSource(input);
+			runner.run("levelUpdate", width, height, entities, () -> {
+				input.nextTick();
+				level.update(1f / HeadlessRunner.TICK_RATE);
+				if(!level.isActive()) {
+					level.restartLevel();
+					input.reset();
+				}
+				return (long) level.getPlayer().getX();
+			}, null);
+			PlayerInput.setSource(null);
+		}
+
+		if(selected.contains("restartLevel")) {
+			Level level = new Level(leveldata);
+			Map map = level.getMap();
+			int[][] flood = findFloodedCells(leveldata);
+			//Every restart puts back the water and gas of all flowers, they are put into the map again before each one
+			runner.run("restartLevel", width, height, entities, () -> {
+				for (int[] cell : flood) {
+					map.setId(cell[0], cell[1], cell[2]);
+				}
+			}, () -> {
+				long changed = map.getChangedCount();
+				level.restartLevel();
+				return changed;
+			}, null);
+		}
+
+		if(selected.contains("draw")) {
+			Level level = new Level(leveldata);
+			level.setBackground(Main.BACKGROUND);
+			BufferedImage image = new BufferedImage(Main.SCREEN_WIDTH, Main.SCREEN_HEIGHT, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = image.createGraphics();
+			runner.run("draw", width, height, entities, () -> {
+				g.setColor(Main.BACKGROUND);
+				g.fillRect(0, 0, image.getWidth(), image.getHeight());
+				level.draw(g, 1);
+				return image.getRGB(0, 0);
+			}, null);
+			g.dispose();
+		}
+
+		if(selected.contains("loadLeveldata")) {
+			File file = File.createTempFile("benchmark", ".txt");
+			file.deleteOnExit();
+			writeLevel(file, leveldata);
+			runner.run("loadLeveldata", width, height, entities, () -> {
+				return LeveldataLoader.loadLeveldata(file.getPath()).getMapdata().getWidth();
+			}, null);
+		}
+
+		if(selected.contains("loadTileset")) {
+			runner.run("loadTileset", width, height, entities, () -> {
+				return TilesetLoader.loadTileset("/workspaces/platformer/workspace/gfx/tileset.txt",
+						ImageLoader.loadImage("/workspaces/platformer/workspace/gfx/tileset.png")).getImage("Solid").getWidth();
+			}, null);
+		}
+
+		if(selected.contains("waterSpread")) {
+			Level level = new Level(leveldata);
+			Map map = level.getMap();
+			WaterFlow water = new WaterFlow();
+			int[] flowers = findCells(map, 10);
+			runner.run("waterSpread", width, height, entities, () -> {
+				//Floods of all water flowers until they settle
+				for (int cell : flowers) {
+					water.start(cell / height, cell % height);
+				}
+				while (water.isFlowing()) {
+					water.update(map);
+				}
+				long changed = map.getChangedCount();
+				map.reset();
+				return changed;
+			}, null);
+		}
+
+		if(selected.contains("gasSpread")) {
+			Level level = new Level(leveldata);
+			Map map = level.getMap();
+			GasDiffusion gas = new GasDiffusion(width, height);
+			int[] flowers = findCells(map, 11);
+			runner.run("gasSpread", width, height, entities, () -> {
+				for (int cell : flowers) {
+					gas.emit(map, cell / height, cell % height, Level.FLOWER_GAS);
+				}
+				for (int i = 0; i < GAS_UPDATES; i++) {
+					gas.update(map);
+				}
+				long active = gas.getActiveCount();
+				gas.reset();
+				map.reset();
+				return active;
+			}, null);
+		}
+	}
+
+	/**
+	 * Lets the water and gas of all flowers spread the way waterSpread and gasSpread do
+	 * @return The cells the spreads changed as {col, row, id}
+	 */
+	private static int[][] findFloodedCells(LevelData leveldata) {
+		Map map = new Level(leveldata).getMap();
+		Map original = new Level(leveldata).getMap();
+		WaterFlow water = new WaterFlow();
+		for (int cell : findCells(map, 10)) {
+			water.start(cell / map.getHeight(), cell % map.getHeight());
+		}
+		while (water.isFlowing()) {
+			water.update(map);
+		}
+		GasDiffusion gas = new GasDiffusion(map.getWidth(), map.getHeight());
+		for (int cell : findCells(map, 11)) {
+			gas.emit(map, cell / map.getHeight(), cell % map.getHeight(), Level.FLOWER_GAS);
+		}
+		for (int i = 0; i < GAS_UPDATES; i++) {
+			gas.update(map);
+		}
+
+		List<int[]> cells = new ArrayList<>();
+		for (int col = 0; col < map.getWidth(); col++) {
+			for (int row = 0; row < map.getHeight(); row++) {
+				if(map.getId(col, row) != original.getId(col, row)) cells.add(new int[] {col, row, map.getId(col, row)});
+			}
+		}
+		return cells.toArray(new int[cells.size()][]);
+	}
+
+	/**
+	 * Creates a level like the ones made in the map editor: ground with pits, platforms, spikes,
+	 * water and gas flowers, a flag at the end and the enemies spread evenly over the ground
+	 */
+	public static LevelData generateLevel(int width, int height, int entities) {
+		int[][] values = new int[width][height];
+		int ground = height - 1;
+		for (int x = 0; x < width; x++) {
+			boolean pit = x > 8 && x % 29 == 0;
+			if(!pit) {
+				values[x][ground] = 1;
+				if(height > 4) values[x][ground - 1] = x % 17 == 5 ? 3 : 0; //spikes
+			}
+			if(height > 8 && x % 12 >= 6 && x % 12 < 10) values[x][ground - 4] = 14; //platforms
+			if(height > 2 && x % 23 == 11 && !pit) values[x][ground - 1] = x % 46 == 11 ? 10 : 11; //flowers
+		}
+		for (int i = 0; i < entities; i++) {
+			int x = 4 + (int) ((long) i * (width - 8) / Math.max(1, entities));
+			if(height > 2 && values[x][ground - 1] == 0) values[x][ground - 1] = 8;
+		}
+		if(height > 2) values[width - 2][ground - 1] = 9;
+
+		int tileSize = Math.min(100, Main.SCREEN_HEIGHT / 10); //same as LeveldataLoader with a tile size of 50
+		return new LevelData(new Mapdata(width, height, tileSize, values), 2, Math.max(0, ground - 2));
+	}
+
+	//Same format as the map editor saves
+	private static void writeLevel(File file, LevelData leveldata) throws Exception {
+		Mapdata mapdata = leveldata.getMapdata();
+		try (PrintWriter out = new PrintWriter(file)) {
+			out.println("width=" + mapdata.getWidth());
+			out.println("height=" + mapdata.getHeight());
+			out.println("tileSize=50");
+			for (int y = 0; y < mapdata.getHeight(); y++) {
+				for (int x = 0; x < mapdata.getWidth(); x++) {
+					out.print(mapdata.getValues()[x][y] + ",");
+				}
+				out.println();
+			}
+			out.println("playerPos=" + leveldata.getPlayerX() + "," + leveldata.getPlayerY());
+		}
+	}
+
+	//Cells of the map with the given tile id, column by column
+	private static int[] findCells(Map map, int id) {
+		int[] cells = new int[16];
+		int count = 0;
+		for (int col = 0; col < map.getWidth(); col++) {
+			for (int row = 0; row < map.getHeight(); row++) {
+				if(map.getId(col, row) != id) continue;
+				if(count == cells.length) cells = Arrays.copyOf(cells, count * 2);
+				cells[count++] = col * map.getHeight() + row;
+			}
+		}
+		return Arrays.copyOf(cells, count);
+	}
+
+	public static void main(String[] args) throws Exception {
+		System.setProperty("java.awt.headless", "true");
+		String sizes = "100x20,400x40,1600x80";
+		String entities = "0,100,1000";
+		List<String> selected = new ArrayList<>(Arrays.asList(BENCHMARKS));
+		String out = null;
+		BenchmarkRunner runner = new BenchmarkRunner();
+
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "-sizes": sizes = args[++i]; break;
+			case "-entities": entities = args[++i]; break;
+			case "-only": selected = Arrays.asList(args[++i].split(",")); break;
+			case "-out": out = args[++i]; break;
+			case "-quick":
+				runner.setWarmupIterations(1);
+				runner.setMeasurementIterations(3);
+				runner.setIterationTime(200);
+				break;
+			default:
+				System.out.println("Usage: Benchmarks [-sizes 100x20,400x40] [-entities 0,100] [-only " + String.join(",", BENCHMARKS) + "] [-quick] [-out results.csv|results.json]");
+				return;
+			}
+		}
+
+		GameResources.load();
+		Benchmarks benchmarks = new Benchmarks(runner, selected);
+		for (String size : sizes.split(",")) {
+			String[] parts = size.split("x");
+			for (String count : entities.split(",")) {
+				benchmarks.run(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(count));
+			}
+		}
+
+		if(out != null) {
+			try (PrintWriter writer = new PrintWriter(out)) {
+				if(out.endsWith(".json")) runner.writeJson(writer);
+				else runner.writeCsv(writer);
+			}
+		}
+		System.out.println("(" + runner.getSink() + ")");
+	}
+}
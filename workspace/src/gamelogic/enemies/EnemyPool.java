@@ -0,0 +1,377 @@
+package gamelogic.enemies;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import gameengine.PhysicsObject;
+import gameengine.hitbox.Hitbox;
+import gameengine.hitbox.SpatialHash;
+import gameengine.loaders.ImageLoader;
+import gameengine.profiling.GameEvents;
+import gamelogic.GameResources;
+import gamelogic.level.Level;
+import gamelogic.tiledMap.StaticCollisionLayer;
+import gamelogic.tiles.Tile;
+
+/**
+ * All enemies of a level, stored as parallel arrays instead of one Physics Object per enemy.
+ * Enemies patrol: they fall like any Physics Object and turn around when they run into an obstacle.
+ */
+public class EnemyPool {
+
+	//Bits of contacts[]
+	public static final int CONTACT_BOT = 1 << PhysicsObject.BOT;
+	public static final int CONTACT_TOP = 1 << PhysicsObject.TOP;
+	public static final int CONTACT_LEF = 1 << PhysicsObject.LEF;
+	public static final int CONTACT_RIG = 1 << PhysicsObject.RIG;
+
+	public static final int CHUNK_SIZE = 512; //enemies per task when updating in parallel
+
+	private float walkSpeed = 80;
+	private int size; //width and height of an enemy
+	private BufferedImage image;
+	private Level level;
+
+	private int count;
+	private float[] x;
+	private float[] y;
+	private float[] previousX;
+	private float[] previousY;
+	private float[] movementX;
+	private float[] movementY;
+	private float[] hitboxOffsetX;
+	private float[] hitboxOffsetY;
+	private int[] hitboxWidth;
+	private int[] hitboxHeight;
+	private byte[] contacts; //obstacles hit in the last update, see CONTACT_*
+	private boolean[] awake; //sleeping enemies are frozen until they are inside the active region again
+
+	private int initialCount; //enemies reset() goes back to
+	private float[] initialX = new float[0];
+	private float[] initialY = new float[0];
+
+	private Tile[] closest = new Tile[4]; //reused for every collision query
+
+	private boolean parallel; //update chunks of enemies on all cores
+	private UpdateTask updateTask = new UpdateTask();
+	private ChunkTask[] chunkTasks = new ChunkTask[0];
+
+	public EnemyPool(Level level) {
+		this.level = level;
+		this.size = (int)(level.getLevelData().getTileSize()*1.5);
+		this.image = ImageLoader.toCompatibleImage(GameResources.enemy, size, size); //drawn at its own size, without scaling
+		allocate(16);
+	}
+
+	public void clear() {
+		count = 0;
+	}
+
+	/**
+	 * Remembers the positions of the enemies, reset() brings them back to this state
+	 */
+	public void saveInitialState() {
+		initialCount = count;
+		initialX = Arrays.copyOf(x, count);
+		initialY = Arrays.copyOf(y, count);
+	}
+
+	/**
+	 * Replaces all enemies with the ones saved by saveInitialState, walking to the right again
+	 */
+	public void reset() {
+		count = 0;
+		for (int i = 0; i < initialCount; i++) {
+			add(initialX[i], initialY[i]);
+		}
+	}
+
+	/**
+	 * Adds an enemy walking to the right
+	 * @param x The x position in pixels
+	 * @param y The y position in pixels
+	 */
+	public void add(float x, float y) {
+		if(count == this.x.length) allocate(count * 2);
+		this.x[count] = x;
+		this.y[count] = y;
+		previousX[count] = x;
+		previousY[count] = y;
+		movementX[count] = walkSpeed;
+		movementY[count] = 0;
+		hitboxOffsetX[count] = 10;
+		hitboxOffsetY[count] = 10;
+		hitboxWidth[count] = (size - 10) - 10;
+		hitboxHeight[count] = (size - 10) - 10;
+		contacts[count] = 0;
+		awake[count] = true;
+		count++;
+	}
+
+	/**
+	 * Makes the previous positions of all enemies the current ones, so there is no movement left to interpolate
+	 */
+	public void savePreviousPositions() {
+		System.arraycopy(x, 0, previousX, 0, count);
+		System.arraycopy(y, 0, previousY, 0, count);
+	}
+
+	/**
+	 * Wakes all enemies inside the region and puts all others to sleep
+	 */
+	public void setActiveRegion(float left, float top, float right, float bottom) {
+		for (int i = 0; i < count; i++) {
+			awake[i] = x[i] + size > left && x[i] < right && y[i] + size > top && y[i] < bottom;
+			if(!awake[i]) {
+				//No movement to interpolate while sleeping
+				previousX[i] = x[i];
+				previousY[i] = y[i];
+			}
+		}
+	}
+
+	public void update(float tslf) {
+		GameEvents.CollisionPass event = GameEvents.isRecording() ? GameEvents.begin(new GameEvents.CollisionPass()) : null;
+		StaticCollisionLayer obstacles = level.getMap().getCollisionLayer();
+
+		if(parallel && count > CHUNK_SIZE) {
+			//Enemies do not interact with each other and only read the static obstacles,
+			//so every chunk can be updated on its own with exactly the same result as in serial
+			int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+			if(chunkTasks.length != chunks) {
+				chunkTasks = new ChunkTask[chunks];
+				for (int i = 0; i < chunks; i++) chunkTasks[i] = new ChunkTask();
+			}
+			for (int i = 0; i < chunks; i++) {
+				chunkTasks[i].reinitialize();
+				chunkTasks[i].from = i * CHUNK_SIZE;
+				chunkTasks[i].to = Math.min(count, (i + 1) * CHUNK_SIZE);
+				chunkTasks[i].tslf = tslf;
+				chunkTasks[i].obstacles = obstacles;
+			}
+			updateTask.reinitialize();
+			ForkJoinPool.commonPool().invoke(updateTask);
+		} else {
+			update(0, count, tslf, obstacles, closest);
+		}
+
+		if(event != null && event.shouldCommit()) {
+			event.entities = count;
+			event.parallel = parallel && count > CHUNK_SIZE;
+			event.commit();
+		}
+	}
+
+	private void update(int from, int to, float tslf, StaticCollisionLayer obstacles, Tile[] closest) {
+		//Gravity
+		float gravity = (Level.GRAVITY * Level.GRAVITY) * tslf;
+		for (int i = from; i < to; i++) {
+			if(!awake[i]) continue;
+			previousX[i] = x[i];
+			previousY[i] = y[i];
+			movementY[i] += gravity;
+		}
+
+		//Collision-handling, the only step that cannot run as a plain loop over the arrays
+		for (int i = from; i < to; i++) {
+			if(!awake[i]) continue;
+			collide(i, tslf, obstacles, closest);
+		}
+
+		//Movement
+		for (int i = from; i < to; i++) {
+			if(!awake[i]) continue;
+			x[i] += movementX[i] * tslf;
+			y[i] += movementY[i] * tslf;
+		}
+
+		//Patrolling: turn around at walls
+		for (int i = from; i < to; i++) {
+			if(!awake[i]) continue;
+			if((contacts[i] & CONTACT_LEF) != 0) {
+				movementX[i] = walkSpeed;
+			} else if((contacts[i] & CONTACT_RIG) != 0) {
+				movementX[i] = -walkSpeed;
+			}
+		}
+	}
+
+	//Same collision test and response as in PhysicsObject
+	private void collide(int i, float tslf, StaticCollisionLayer obstacles, Tile[] closest) {
+		float leftSide = x[i] + hitboxOffsetX[i];
+		float topSide = y[i] + hitboxOffsetY[i];
+		obstacles.findClosest(leftSide, topSide, leftSide + hitboxWidth[i], topSide + hitboxHeight[i], closest);
+
+		float newX = x[i] + movementX[i] * tslf;
+		float newY = y[i] + movementY[i] * tslf;
+		int contact = 0;
+
+		Tile bot = closest[PhysicsObject.BOT];
+		if(bot != null && newY + (hitboxOffsetY[i] + hitboxHeight[i]) > bot.getHitbox().getY()) {
+			y[i] = bot.getHitbox().getY() - (hitboxOffsetY[i] + hitboxHeight[i]);
+			movementY[i] = 0;
+			contact |= CONTACT_BOT;
+		}
+		Tile top = closest[PhysicsObject.TOP];
+		if(top != null && newY + hitboxOffsetY[i] < top.getHitbox().getY() + top.getHitbox().getHeight()) {
+			y[i] = (top.getHitbox().getY() + top.getHitbox().getHeight()) - hitboxOffsetY[i];
+			movementY[i] = 0;
+			contact |= CONTACT_TOP;
+		}
+		Tile lef = closest[PhysicsObject.LEF];
+		if(lef != null && newX + hitboxOffsetX[i] < lef.getHitbox().getX() + lef.getHitbox().getWidth()) {
+			x[i] = (lef.getHitbox().getX() + lef.getHitbox().getWidth()) - hitboxOffsetX[i];
+			movementX[i] = 0;
+			contact |= CONTACT_LEF;
+		}
+		Tile rig = closest[PhysicsObject.RIG];
+		if(rig != null && newX + (hitboxOffsetX[i] + hitboxWidth[i]) > rig.getHitbox().getX()) {
+			x[i] = rig.getHitbox().getX() - (hitboxOffsetX[i] + hitboxWidth[i]);
+			movementX[i] = 0;
+			contact |= CONTACT_RIG;
+		}
+		contacts[i] = (byte) contact;
+	}
+
+	/**
+	 * Inserts the hitboxes of all awake enemies into the hash, ids are the enemy indices
+	 */
+	public void insertInto(SpatialHash hash) {
+		for (int i = 0; i < count; i++) {
+			if(!awake[i]) continue;
+			hash.insert(i, x[i] + hitboxOffsetX[i], y[i] + hitboxOffsetY[i], hitboxWidth[i], hitboxHeight[i]);
+		}
+	}
+
+	public void draw(Graphics g, float alpha) {
+		draw(g, alpha, -Float.MAX_VALUE, -Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE);
+	}
+
+	/**
+	 * Only draws the enemies that are at least partly inside the given region, e.g. the view of the camera
+	 */
+	public void draw(Graphics g, float alpha, float left, float top, float right, float bottom) {
+		for (int i = 0; i < count; i++) {
+			int renderX = (int)(previousX[i] + (x[i] - previousX[i]) * alpha);
+			int renderY = (int)(previousY[i] + (y[i] - previousY[i]) * alpha);
+			if(renderX + size <= left || renderX >= right || renderY + size <= top || renderY >= bottom) continue;
+			g.drawImage(image, renderX, renderY, size, size, null);
+		}
+
+		if(!Hitbox.SHOW_HITBOXES) return;
+		g.setColor(Color.GREEN);
+		for (int i = 0; i < count; i++) {
+			if(x[i] + size <= left || x[i] >= right || y[i] + size <= top || y[i] >= bottom) continue;
+			g.drawRect((int)(x[i] + hitboxOffsetX[i]), (int)(y[i] + hitboxOffsetY[i]), hitboxWidth[i], hitboxHeight[i]);
+		}
+	}
+
+	/**
+	 * Copies the previous and current positions of all enemies, e.g. for drawing them on another thread
+	 * @return The number of enemies copied, the arrays must be at least that long
+	 */
+	public int copyPositions(float[] previousX, float[] previousY, float[] x, float[] y) {
+		System.arraycopy(this.previousX, 0, previousX, 0, count);
+		System.arraycopy(this.previousY, 0, previousY, 0, count);
+		System.arraycopy(this.x, 0, x, 0, count);
+		System.arraycopy(this.y, 0, y, 0, count);
+		return count;
+	}
+
+	//Forks all chunk tasks and waits for them
+	@SuppressWarnings("serial")
+	private class UpdateTask extends RecursiveAction {
+		@Override
+		protected void compute() {
+			invokeAll(chunkTasks);
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private class ChunkTask extends RecursiveAction {
+		private int from;
+		private int to;
+		private float tslf;
+		private StaticCollisionLayer obstacles;
+		private Tile[] closest = new Tile[4]; //every chunk needs its own, the chunks run at the same time
+
+		@Override
+		protected void compute() {
+			update(from, to, tslf, obstacles, closest);
+		}
+	}
+
+	private void allocate(int capacity) {
+		if(x == null) {
+			x = new float[capacity];
+			y = new float[capacity];
+			previousX = new float[capacity];
+			previousY = new float[capacity];
+			movementX = new float[capacity];
+			movementY = new float[capacity];
+			hitboxOffsetX = new float[capacity];
+			hitboxOffsetY = new float[capacity];
+			hitboxWidth = new int[capacity];
+			hitboxHeight = new int[capacity];
+			contacts = new byte[capacity];
+			awake = new boolean[capacity];
+			return;
+		}
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		previousX = Arrays.copyOf(previousX, capacity);
+		previousY = Arrays.copyOf(previousY, capacity);
+		movementX = Arrays.copyOf(movementX, capacity);
+		movementY = Arrays.copyOf(movementY, capacity);
+		hitboxOffsetX = Arrays.copyOf(hitboxOffsetX, capacity);
+		hitboxOffsetY = Arrays.copyOf(hitboxOffsetY, capacity);
+		hitboxWidth = Arrays.copyOf(hitboxWidth, capacity);
+		hitboxHeight = Arrays.copyOf(hitboxHeight, capacity);
+		contacts = Arrays.copyOf(contacts, capacity);
+		awake = Arrays.copyOf(awake, capacity);
+	}
+
+	/**
+	 * Updates the enemies in chunks on all cores when there are enough of them. Off by default.
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	//-------------------------------------------------------------Getters
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public int getEnemySize() {
+		return size;
+	}
+
+	public BufferedImage getImage() {
+		return image;
+	}
+
+	public float getX(int i) {
+		return x[i];
+	}
+
+	public float getY(int i) {
+		return y[i];
+	}
+
+	public int getContacts(int i) {
+		return contacts[i];
+	}
+
+	public boolean isAwake(int i) {
+		return awake[i];
+	}
+}
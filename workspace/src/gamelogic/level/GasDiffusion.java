@@ -0,0 +1,173 @@
+package gamelogic.level;
+
+import java.util.Arrays;
+
+import gameengine.profiling.GameEvents;
+import gamelogic.tiledMap.Map;
+import gamelogic.tiles.TileType;
+
+/**
+ * The gas of flowers, stored as an amount per cell that spreads to the neighbouring cells and slowly dissipates.
+ * Only cells with gas are kept in the active set, and at most cellsPerUpdate of them are processed per update.
+ * The map shows the gas with the GasOne, GasTwo and GasThree tiles depending on the amount in a cell.
+ * Gas placed in the map is not part of the simulation and stays as it is.
+ */
+public class GasDiffusion {
+
+	public static final int[] GAS_IDS = {15, 16, 17}; //tile id of the gas for each intensity (1 to 3)
+	public static final int MAX_AMOUNT = 127;
+
+	//Neighbours in the order gas spreads to them: up, up right, up left, right, left, down, down right, down left
+	private static final int[][] DIRECTIONS = {{0, -1}, {1, -1}, {-1, -1}, {1, 0}, {-1, 0}, {0, 1}, {1, 1}, {-1, 1}};
+
+	private int width; //size of the map in number of tiles
+	private int height;
+	private byte[] amounts; //gas in every cell, column by column
+	private int[] active = new int[64]; //cells with gas
+	private int activeCount;
+	private int next; //index in active of the next cell to process
+	private int round; //number of times every active cell has been processed, at most once per update
+	private int cellsTouched; //cells whose gas changed in the current update
+
+	private int cellsPerUpdate = 128;
+	private int dissipationRounds = 120; //rounds after which every cell loses one unit of gas
+
+	public GasDiffusion(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.amounts = new byte[width * height];
+	}
+
+	/**
+	 * Adds gas to a cell, replacing the tile that was there
+	 */
+	public void emit(Map map, int col, int row, int amount) {
+		int cell = col * height + row;
+		if(amounts[cell] == 0) activate(cell);
+		amounts[cell] = (byte) Math.min(MAX_AMOUNT, amounts[cell] + amount);
+		show(map, col, row, amounts[cell]);
+	}
+
+	/**
+	 * Removes all gas from the simulation, the map itself is not changed
+	 */
+	public void reset() {
+		for (int i = 0; i < activeCount; i++) {
+			amounts[active[i]] = 0;
+		}
+		activeCount = 0;
+		next = 0;
+		round = 0;
+	}
+
+	/**
+	 * Processes up to cellsPerUpdate active cells, continuing where the last update stopped.
+	 * A round over all active cells ends the update, so small clouds do not change faster than big ones.
+	 */
+	public void update(Map map) {
+		if(activeCount == 0) return;
+		GameEvents.GasSpread event = GameEvents.isRecording() ? GameEvents.begin(new GameEvents.GasSpread()) : null;
+		cellsTouched = 0;
+		int processed = 0;
+		while (processed < cellsPerUpdate && activeCount > 0) {
+			if(next >= activeCount) {
+				next = 0;
+				round++;
+				break;
+			}
+			int cell = active[next];
+			if(process(map, cell)) {
+				next++;
+			} else {
+				//Gas is gone, the last active cell takes its place and is processed next
+				amounts[cell] = 0;
+				active[next] = active[--activeCount];
+			}
+			processed++;
+		}
+
+		if(event != null && event.shouldCommit()) {
+			event.cellsProcessed = processed;
+			event.cellsTouched = cellsTouched;
+			event.activeCells = activeCount;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Spreads the gas of a cell to its neighbours and lets it dissipate
+	 * @return false if the cell has no gas left
+	 */
+	private boolean process(Map map, int cell) {
+		int col = cell / height;
+		int row = cell % height;
+		if(!map.getType(col, row).isGas()) return false; //replaced by something else, e.g. water
+
+		int amount = amounts[cell];
+		for (int i = 0; i < DIRECTIONS.length && amount > 1; i++) {
+			int x = col + DIRECTIONS[i][0];
+			int y = row + DIRECTIONS[i][1];
+			if(x < 0 || x >= width || y < 0 || y >= height) continue;
+			int neighbour = x * height + y;
+			if(!canHoldGas(map.getType(x, y), amounts[neighbour])) continue;
+			if(amounts[neighbour] >= amount - 1) continue; //gas only flows to cells with less gas
+			if(amounts[neighbour] == 0) activate(neighbour);
+			amounts[neighbour]++;
+			amount--;
+			show(map, x, y, amounts[neighbour]);
+		}
+		if(round % dissipationRounds == dissipationRounds - 1) amount--;
+		amounts[cell] = (byte) amount;
+
+		if(amount <= 0) {
+			map.setId(col, row, 0);
+			return false;
+		}
+		show(map, col, row, amount);
+		return true;
+	}
+
+	private void activate(int cell) {
+		if(activeCount == active.length) active = Arrays.copyOf(active, activeCount * 2);
+		active[activeCount++] = cell;
+	}
+
+	//Only changes the id if the intensity changed, so the map does not record cells that stay the same
+	private void show(Map map, int col, int row, int amount) {
+		int id = GAS_IDS[getIntensity(amount) - 1];
+		if(map.getId(col, row) != id) {
+			map.setId(col, row, id);
+			cellsTouched++;
+		}
+	}
+
+	private static int getIntensity(int amount) {
+		if(amount >= 6) return 3;
+		if(amount >= 3) return 2;
+		return 1;
+	}
+
+	//Gas spreads through air and its own gas, never into solid tiles, water, tiles with their own state
+	//or gas placed in the map, which has no amount and would otherwise start dissipating
+	private static boolean canHoldGas(TileType type, int amount) {
+		if(type.isGas()) return amount > 0;
+		return !type.isSolid() && !type.isOverlay() && !type.isWater();
+	}
+
+	public void setCellsPerUpdate(int cellsPerUpdate) {
+		this.cellsPerUpdate = cellsPerUpdate;
+	}
+
+	public void setDissipationRounds(int dissipationRounds) {
+		this.dissipationRounds = dissipationRounds;
+	}
+
+	//-----------------------------------------------------Getters
+	public int getAmount(int col, int row) {
+		return amounts[col * height + row];
+	}
+
+	public int getActiveCount() {
+		return activeCount;
+	}
+}
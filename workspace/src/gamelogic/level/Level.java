@@ -7,19 +7,25 @@ import java.util.List;
 
 import gameengine.PhysicsObject;
 import gameengine.graphics.Camera;
+import gameengine.hitbox.SpatialHash;
 import gameengine.loaders.Mapdata;
 import gameengine.loaders.Tileset;
+import gameengine.profiling.GameEvents;
+import gameengine.profiling.PhaseTimer;
+import gameengine.profiling.Profiler;
 import gamelogic.GameResources;
 import gamelogic.Main;
-import gamelogic.enemies.Enemy;
+import gamelogic.enemies.EnemyPool;
 import gamelogic.player.Player;
 import gamelogic.tiledMap.Map;
+import gamelogic.tiledMap.TileChunkCache;
 import gamelogic.tiles.Flag;
 import gamelogic.tiles.Flower;
 import gamelogic.tiles.Gas;
 import gamelogic.tiles.SolidTile;
 import gamelogic.tiles.Spikes;
 import gamelogic.tiles.Tile;
+import gamelogic.tiles.TileType;
 import gamelogic.tiles.Water;
 import gamelogic.tiles.DoubleJumpPowerup; // Import the new power-up tile
 
@@ -27,7 +33,7 @@ public class Level {
 
 	private LevelData leveldata;
 	private Map map;
-	private Enemy[] enemies;
+	private EnemyPool enemies;
 	public static Player player;
 	private Camera camera;
 
@@ -36,9 +42,12 @@ public class Level {
 	private boolean playerWin;
 	// private boolean playerInGas; // Removed: Player now tracks this internally
 
-	private ArrayList<Enemy> enemiesList = new ArrayList<>();
-	private ArrayList<Flower> flowers = new ArrayList<>();
-	private ArrayList<DoubleJumpPowerup> doubleJumpPowerups = new ArrayList<>(); // Added for Double Jump Power-up
+	private TriggerIndex triggers; // Flag, flowers and power-ups
+	private WaterFlow waterFlow = new WaterFlow(); // Water of the touched flowers, spread over several updates
+	private GasDiffusion gas; // Gas of the touched flowers
+
+	// Spatial hash so the player is only tested against nearby enemies
+	private SpatialHash enemyHash;
 
 	private List<PlayerDieListener> dieListeners = new ArrayList<>();
 	private List<PlayerWinListener> winListeners = new ArrayList<>();
@@ -48,7 +57,21 @@ public class Level {
 	private int height;
 	private int tileSize;
 	private Tileset tileset;
+	private TileType[] tileTypes; // Shared by all cells with the same tile id
+	private TileChunkCache chunkCache; // The cells without an overlay, pre-rendered
 	public static float GRAVITY = 70;
+	private float activeMargin; // Enemies further than this (in pixels) outside the camera sleep, negative to simulate everything
+	static final Color GAS_OVERLAY = new Color(0, 0, 0, 128); // 50% black, created once instead of every frame
+	private static final int AIR = 0; // Tile ids, same as in the tileset
+	public static final int FLOWER_GAS = 40; // Amount of gas a flower releases
+
+	// Sub-steps of update, see Profiler
+	private static final PhaseTimer PLAYER_TIMER = Profiler.timer("level.player");
+	private static final PhaseTimer TRIGGERS_TIMER = Profiler.timer("level.triggers");
+	private static final PhaseTimer WATER_TIMER = Profiler.timer("level.water");
+	private static final PhaseTimer GAS_TIMER = Profiler.timer("level.gas");
+	private static final PhaseTimer ENEMIES_TIMER = Profiler.timer("level.enemies");
+	private static final PhaseTimer CAMERA_TIMER = Profiler.timer("level.camera");
 
 	public Level(LevelData leveldata) {
 		this.leveldata = leveldata;
@@ -56,6 +79,14 @@ public class Level {
 		width = mapdata.getWidth();
 		height = mapdata.getHeight();
 		tileSize = mapdata.getTileSize();
+		activeMargin = tileSize * 5;
+		enemies = new EnemyPool(this);
+		enemyHash = new SpatialHash(tileSize * 2);
+		triggers = new TriggerIndex(tileSize * 2);
+		gas = new GasDiffusion(width, height);
+		tileset = GameResources.tileset;
+		tileTypes = createTileTypes();
+		loadLevel();
 		restartLevel();
 	}
 
@@ -63,82 +94,53 @@ public class Level {
 		return leveldata;
 	}
 
-	public void restartLevel() {
+	// Reads the map data once and saves the initial state of the map and the enemies
+	// Precondition: mapdata, tileTypes and enemies must be initialized.
+	// Postcondition: map, enemies and triggers hold the level as it starts.
+	private void loadLevel() {
 		int[][] values = mapdata.getValues();
-		Tile[][] tiles = new Tile[width][height];
-
-		// Clear lists for a clean restart
-		enemiesList.clear();
-		flowers.clear();
-		doubleJumpPowerups.clear(); // Clear power-up list
 
+		// The map only stores tile ids, tiles that carry state are added as overlays
+		byte[] ids = new byte[width * height];
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				if (values[x][y] > 0 && values[x][y] < tileTypes.length)
+					ids[x * height + y] = (byte) values[x][y];
+			}
+		}
+		map = new Map(width, height, tileSize, ids, tileTypes);
+		chunkCache = new TileChunkCache(map);
+		chunkCache.setViewSize(Main.SCREEN_WIDTH, Main.SCREEN_HEIGHT); // The size of the camera
 		for (int x = 0; x < width; x++) {
-			int xPosition = x;
 			for (int y = 0; y < height; y++) {
-				int yPosition = y;
-
-				tileset = GameResources.tileset;
-
-				tiles[x][y] = new Tile(xPosition, yPosition, tileSize, null, false, this); // Default to Air
-				if (values[x][y] == 0)
-					tiles[x][y] = new Tile(xPosition, yPosition, tileSize, null, false, this); // Air
-				else if (values[x][y] == 1)
-					tiles[x][y] = new SolidTile(xPosition, yPosition, tileSize, tileset.getImage("Solid"), this);
-
-				else if (values[x][y] == 2)
-					tiles[x][y] = new Spikes(xPosition, yPosition, tileSize, Spikes.HORIZONTAL_DOWNWARDS, this);
-				else if (values[x][y] == 3)
-					tiles[x][y] = new Spikes(xPosition, yPosition, tileSize, Spikes.HORIZONTAL_UPWARDS, this);
-				else if (values[x][y] == 4)
-					tiles[x][y] = new Spikes(xPosition, yPosition, tileSize, Spikes.VERTICAL_LEFTWARDS, this);
-				else if (values[x][y] == 5)
-					tiles[x][y] = new Spikes(xPosition, yPosition, tileSize, Spikes.VERTICAL_RIGHTWARDS, this);
-				else if (values[x][y] == 6)
-					tiles[x][y] = new SolidTile(xPosition, yPosition, tileSize, tileset.getImage("Dirt"), this);
-				else if (values[x][y] == 7)
-					tiles[x][y] = new SolidTile(xPosition, yPosition, tileSize, tileset.getImage("Grass"), this);
-				else if (values[x][y] == 8)
-					enemiesList.add(new Enemy(xPosition*tileSize, yPosition*tileSize, this)); //t55r
-				else if (values[x][y] == 9)
-					tiles[x][y] = new Flag(xPosition, yPosition, tileSize, tileset.getImage("Flag"), this);
-				else if (values[x][y] == 10) {
-					tiles[x][y] = new Flower(xPosition, yPosition, tileSize, tileset.getImage("Flower1"), this, 1);
-					flowers.add((Flower) tiles[x][y]);
-				} else if (values[x][y] == 11) {
-					tiles[x][y] = new Flower(xPosition, yPosition, tileSize, tileset.getImage("Flower2"), this, 2);
-					flowers.add((Flower) tiles[x][y]);
-				} else if (values[x][y] == 12)
-					tiles[x][y] = new SolidTile(xPosition, yPosition, tileSize, tileset.getImage("Solid_down"), this);
-				else if (values[x][y] == 13)
-					tiles[x][y] = new SolidTile(xPosition, yPosition, tileSize, tileset.getImage("Solid_up"), this);
-				else if (values[x][y] == 14)
-					tiles[x][y] = new SolidTile(xPosition, yPosition, tileSize, tileset.getImage("Solid_middle"), this);
-				else if (values[x][y] == 15)
-					tiles[x][y] = new Gas(xPosition, yPosition, tileSize, tileset.getImage("GasOne"), this, 1);
-				else if (values[x][y] == 16)
-					tiles[x][y] = new Gas(xPosition, yPosition, tileSize, tileset.getImage("GasTwo"), this, 2);
-				else if (values[x][y] == 17)
-					tiles[x][y] = new Gas(xPosition, yPosition, tileSize, tileset.getImage("GasThree"), this, 3);
-				else if (values[x][y] == 18)
-					tiles[x][y] = new Water(xPosition, yPosition, tileSize, tileset.getImage("Falling_water"), this, 0);
-				else if (values[x][y] == 19)
-					tiles[x][y] = new Water(xPosition, yPosition, tileSize, tileset.getImage("Full_water"), this, 3);
-				else if (values[x][y] == 20)
-					tiles[x][y] = new Water(xPosition, yPosition, tileSize, tileset.getImage("Half_water"), this, 2);
-				else if (values[x][y] == 21)
-					tiles[x][y] = new Water(xPosition, yPosition, tileSize, tileset.getImage("Quarter_water"), this, 1);
-				else if (values[x][y] == 22) { // New tile type for Double Jump Power-up
-					tiles[x][y] = new DoubleJumpPowerup(xPosition, yPosition, tileSize, tileset.getImage("DoubleJumpPowerup"), this);
-					doubleJumpPowerups.add((DoubleJumpPowerup) tiles[x][y]);
+				if (values[x][y] == 8)
+					enemies.add(x*tileSize, y*tileSize);
+				else if (map.getType(x, y).isOverlay()) {
+					Tile tile = createTile(x, y, values[x][y]);
+					map.addTile(x, y, tile); // Added tiles are kept by the map, so their state is not lost
+					if (tile instanceof Trigger)
+						triggers.add((Trigger) tile);
 				}
 			}
 		}
-		enemies = new Enemy[enemiesList.size()];
-		map = new Map(width, height, tileSize, tiles);
+		map.saveInitialState();
+		enemies.saveInitialState();
+	}
+
+	// Puts the level back to the state it started in
+	// Precondition: loadLevel must have been called.
+	// Postcondition: Only the cells changed since the start are reset, enemies and triggers are copied back
+	//                and the player starts again at its start position.
+	public void restartLevel() {
+		GameEvents.RestartLevel event = GameEvents.isRecording() ? GameEvents.begin(new GameEvents.RestartLevel()) : null;
+		int cellsReset = map.getChangedCount();
+		map.reset();
+		enemies.reset();
+		triggers.reset();
+		waterFlow.reset();
+		gas.reset();
+
 		camera = new Camera(Main.SCREEN_WIDTH, Main.SCREEN_HEIGHT, 0, map.getFullWidth(), map.getFullHeight());
-		for (int i = 0; i < enemiesList.size(); i++) {
-			enemies[i] = new Enemy(enemiesList.get(i).getX(), enemiesList.get(i).getY(), this);
-		}
 		player = new Player(leveldata.getPlayerX() * map.getTileSize(), leveldata.getPlayerY() * map.getTileSize(),
 				this);
 		camera.setFocusedObject(player);
@@ -147,6 +149,120 @@ public class Level {
 		playerDead = false;
 		playerWin = false;
 		// playerInGas = false; // Removed: Player now tracks this internally
+
+		if (event != null && event.shouldCommit()) {
+			event.cellsReset = cellsReset;
+			event.enemies = enemies.size();
+			event.commit();
+		}
+	}
+
+	// Creates the tile object for a cell, used for the overlays
+	// Precondition: col and row must be valid indices within the map.
+	// Postcondition: Returns a new tile for the tile id at (col, row), air for empty cells and enemies.
+	public Tile createTile(int col, int row, int value) {
+		if (value == 1)
+			return new SolidTile(col, row, tileSize, tileset.getImage("Solid", tileSize), this);
+		else if (value == 2)
+			return new Spikes(col, row, tileSize, Spikes.HORIZONTAL_DOWNWARDS, this);
+		else if (value == 3)
+			return new Spikes(col, row, tileSize, Spikes.HORIZONTAL_UPWARDS, this);
+		else if (value == 4)
+			return new Spikes(col, row, tileSize, Spikes.VERTICAL_LEFTWARDS, this);
+		else if (value == 5)
+			return new Spikes(col, row, tileSize, Spikes.VERTICAL_RIGHTWARDS, this);
+		else if (value == 6)
+			return new SolidTile(col, row, tileSize, tileset.getImage("Dirt", tileSize), this);
+		else if (value == 7)
+			return new SolidTile(col, row, tileSize, tileset.getImage("Grass", tileSize), this);
+		else if (value == 9)
+			return new Flag(col, row, tileSize, tileset.getImage("Flag", tileSize), this);
+		else if (value == 10)
+			return new Flower(col, row, tileSize, tileset.getImage("Flower1", tileSize), this, 1);
+		else if (value == 11)
+			return new Flower(col, row, tileSize, tileset.getImage("Flower2", tileSize), this, 2);
+		else if (value == 12)
+			return new SolidTile(col, row, tileSize, tileset.getImage("Solid_down", tileSize), this);
+		else if (value == 13)
+			return new SolidTile(col, row, tileSize, tileset.getImage("Solid_up", tileSize), this);
+		else if (value == 14)
+			return new SolidTile(col, row, tileSize, tileset.getImage("Solid_middle", tileSize), this);
+		else if (value == 15)
+			return new Gas(col, row, tileSize, tileset.getImage("GasOne", tileSize), this, 1);
+		else if (value == 16)
+			return new Gas(col, row, tileSize, tileset.getImage("GasTwo", tileSize), this, 2);
+		else if (value == 17)
+			return new Gas(col, row, tileSize, tileset.getImage("GasThree", tileSize), this, 3);
+		else if (value == 18)
+			return new Water(col, row, tileSize, tileset.getImage("Falling_water", tileSize), this, 0);
+		else if (value == 19)
+			return new Water(col, row, tileSize, tileset.getImage("Full_water", tileSize), this, 3);
+		else if (value == 20)
+			return new Water(col, row, tileSize, tileset.getImage("Half_water", tileSize), this, 2);
+		else if (value == 21)
+			return new Water(col, row, tileSize, tileset.getImage("Quarter_water", tileSize), this, 1);
+		else if (value == 22) // Double Jump Power-up
+			return new DoubleJumpPowerup(col, row, tileSize, tileset.getImage("DoubleJumpPowerup", tileSize), this);
+		return new Tile(col, row, tileSize, null, false, this); // Air
+	}
+
+	// Creates the shared type of every tile id, matching the tiles made by createTile
+	// Precondition: tileset and tileSize must be initialized.
+	// Postcondition: Returns the types indexed by tile id, ids without a tile of their own (like enemies) are air.
+	private TileType[] createTileTypes() {
+		TileType[] types = new TileType[23];
+		String[] solids = {null, "Solid", null, null, null, null, "Dirt", "Grass", null, null, null, null, "Solid_down", "Solid_up", "Solid_middle"};
+		for (int id = 0; id < types.length; id++) {
+			if (id < solids.length && solids[id] != null) {
+				types[id] = new TileType(id, tileSize, tileset.getImage(solids[id], tileSize), true);
+				types[id].setHitbox(0, (int) (tileSize * 0.1), tileSize, tileSize); // Same as SolidTile
+			} else {
+				types[id] = new TileType(id, tileSize, null, false);
+			}
+		}
+
+		// Same hitboxes as Spikes
+		int offsetX = (int) (tileSize * 0.1);
+		int offsetY = tileSize / 2;
+		types[2] = new TileType(2, tileSize, tileset.getImage("Spikes_downwards", tileSize), true);
+		types[2].setHitbox(offsetX, 0, tileSize - offsetX, tileSize - offsetY);
+		types[3] = new TileType(3, tileSize, tileset.getImage("Spikes_upwards", tileSize), true);
+		types[3].setHitbox(offsetX, offsetY, tileSize - offsetX, tileSize);
+		types[4] = new TileType(4, tileSize, tileset.getImage("Spikes_leftwards", tileSize), true);
+		types[4].setHitbox(offsetY, offsetX, tileSize, tileSize - offsetX);
+		types[5] = new TileType(5, tileSize, tileset.getImage("Spikes_rightwards", tileSize), true);
+		types[5].setHitbox(0, offsetX, tileSize - offsetY, tileSize - offsetX);
+		for (int id = 2; id <= 5; id++) {
+			types[id].setDeadly(true);
+		}
+
+		types[9] = new TileType(9, tileSize, tileset.getImage("Flag", tileSize), false);
+		types[9].setHitbox(30, 0, tileSize - 30, tileSize);
+		types[10] = new TileType(10, tileSize, tileset.getImage("Flower1", tileSize), false);
+		types[11] = new TileType(11, tileSize, tileset.getImage("Flower2", tileSize), false);
+		types[22] = new TileType(22, tileSize, tileset.getImage("DoubleJumpPowerup", tileSize), false);
+		types[22].setHitbox(0, 0, tileSize, tileSize);
+		for (int id : new int[] {9, 10, 11, 22}) {
+			types[id].setOverlay(true);
+			types[id].setTrigger(true);
+		}
+
+		String[] gas = {"GasOne", "GasTwo", "GasThree"};
+		for (int intensity = 1; intensity <= 3; intensity++) {
+			int id = GasDiffusion.GAS_IDS[intensity - 1];
+			types[id] = new TileType(id, tileSize, tileset.getImage(gas[intensity - 1], tileSize), false);
+			types[id].setGasIntensity(intensity);
+		}
+		String[] water = {"Falling_water", "Quarter_water", "Half_water", "Full_water"};
+		for (int fullness = 0; fullness <= 3; fullness++) {
+			int id = WaterFlow.WATER_IDS[fullness];
+			types[id] = new TileType(id, tileSize, tileset.getImage(water[fullness], tileSize), false);
+			types[id].setWaterLevel(fullness);
+		}
+		for (int id : new int[] {10, 11, 15, 16, 17, 18, 19, 20, 21}) {
+			types[id].setHitbox(0, 10, tileSize, tileSize); // Same as Flower, Gas and Water
+		}
+		return types;
 	}
 
 	public void onPlayerDeath() {
@@ -163,162 +279,201 @@ public class Level {
 
 	public void update(float tslf) {
         if (active) {
+            GameEvents.Tick event = GameEvents.isRecording() ? GameEvents.begin(new GameEvents.Tick()) : null;
+
             // Player's update needs to happen first, so it can internally
             // check its collision matrix populated by PhysicsObject's update.
+            PLAYER_TIMER.start();
             player.update(tslf);
 
             // Player death conditions
             if (map.getFullHeight() + 100 < player.getY())
                 onPlayerDeath();
-            if (player.getCollisionMatrix()[PhysicsObject.BOT] instanceof Spikes)
+            if (isDeadly(player.getCollisionMatrix()[PhysicsObject.BOT]))
                 onPlayerDeath();
-            if (player.getCollisionMatrix()[PhysicsObject.TOP] instanceof Spikes)
+            if (isDeadly(player.getCollisionMatrix()[PhysicsObject.TOP]))
                 onPlayerDeath();
-            if (player.getCollisionMatrix()[PhysicsObject.LEF] instanceof Spikes)
+            if (isDeadly(player.getCollisionMatrix()[PhysicsObject.LEF]))
                 onPlayerDeath();
-            if (player.getCollisionMatrix()[PhysicsObject.RIG] instanceof Spikes)
+            if (isDeadly(player.getCollisionMatrix()[PhysicsObject.RIG]))
                 onPlayerDeath();
-
-            // Collision with Flowers (unchanged)
-            for (int i = 0; i < flowers.size(); i++) {
-                if (flowers.get(i).getHitbox().isIntersecting(player.getHitbox())) {
-                    if(flowers.get(i).getType() == 1)
-                        water(flowers.get(i).getCol(), flowers.get(i).getRow(), map, 3);
-                    else
-                        addGas(flowers.get(i).getCol(), flowers.get(i).getRow(), map, 20, new ArrayList<Gas>());
-                    flowers.remove(i);
-                    i--;
-                }
+            PLAYER_TIMER.stop();
+
+            // Flag, flowers and power-ups the player entered
+            TRIGGERS_TIMER.start();
+            triggers.update(player.getHitbox(), this);
+            TRIGGERS_TIMER.stop();
+            WATER_TIMER.start();
+            waterFlow.update(map);
+            WATER_TIMER.stop();
+            GAS_TIMER.start();
+            gas.update(map);
+            GAS_TIMER.stop();
+
+            // Only simulate what is on or near the screen, based on where the camera was after the last update
+            float regionLeft = -Float.MAX_VALUE, regionTop = -Float.MAX_VALUE, regionRight = Float.MAX_VALUE, regionBottom = Float.MAX_VALUE;
+            if (activeMargin >= 0) {
+                regionLeft = camera.getX() - activeMargin;
+                regionTop = camera.getY() - activeMargin;
+                regionRight = camera.getX() + camera.getWidth() + activeMargin;
+                regionBottom = camera.getY() + camera.getHeight() + activeMargin;
             }
 
-            // Check for Double Jump Power-up collision
-            for (int i = 0; i < doubleJumpPowerups.size(); i++) {
-                DoubleJumpPowerup powerup = doubleJumpPowerups.get(i);
-                if (powerup.getHitbox().isIntersecting(player.getHitbox())) {
-                    player.grantDoubleJump(); // Grant the double jump ability
-                    doubleJumpPowerups.remove(i); // Remove the power-up from the list
-                    // Replace the tile on the map with an air tile so it disappears visually
-                    map.addTile(powerup.getCol(), powerup.getRow(), new Tile(powerup.getCol(), powerup.getRow(), tileSize, null, false, this));
-                    i--; // Decrement index to account for removed element
-                }
-            }
-
-            // Update the enemies
-            for (int i = 0; i < enemies.length; i++) {
-                enemies[i].update(tslf);
-                if (player.getHitbox().isIntersecting(enemies[i].getHitbox())) {
-                    onPlayerDeath();
-                }
+            // Update the enemies, then test the player only against the ones around it
+            ENEMIES_TIMER.start();
+            enemies.setActiveRegion(regionLeft, regionTop, regionRight, regionBottom);
+            enemies.update(tslf);
+            enemyHash.clear();
+            enemies.insertInto(enemyHash);
+            int enemyHits = enemyHash.query(player.getHitbox());
+            for (int i = 0; i < enemyHits; i++) {
+                onPlayerDeath();
             }
-
-            // Update the map
-            map.update(tslf);
+            ENEMIES_TIMER.stop();
 
             // Update the camera
+            CAMERA_TIMER.start();
             camera.update(tslf);
-        }
-    }
-	
-	//#############################################################################################################
-	//Your code goes here! 
-	//Please make sure you read the rubric/directions carefully and implement the solution recursively!
-	
-	// Method to simulate the flow and spreading of water on a map
-    // Precondition: col and row must be valid indices within the bounds of the map; fullness must be 0 to 3.
-    // Postcondition: A Water tile is placed on the map at (col, row), and water may recursively spread to neighboring tiles based on fullness and terrain.
-    private void water(int col, int row, Map map, int fullness) {
-        String name = "";
-        if (fullness == 3) {
-            name = "Full_water";
-        } else if (fullness == 2) {
-            name = "Half_water";
-        } else if (fullness == 1) {
-            name = "Quarter_water";
-        } else if (fullness == 0) {
-            name = "Falling_water";
-        }
-
-        Water w = new Water(col, row, tileSize, tileset.getImage(name), this, fullness);
-        map.addTile(col, row, w);
+            CAMERA_TIMER.stop();
 
-        if (map.getTiles()[col][row] instanceof Water && fullness == 0 && row + 1 < map.getTiles()[0].length
-                && !(map.getTiles()[col][row + 1] instanceof Water) && map.getTiles()[col][row + 1].isSolid()) {
-            water(col, row, map, 3);
-        }
-
-        if (row + 1 < map.getTiles()[0].length && !(map.getTiles()[col][row + 1] instanceof Water)
-                && !map.getTiles()[col][row + 1].isSolid()) {
-            water(col, row + 1, map, 0);
-        } else {
-
-            if (col + 1 < map.getTiles().length && !(map.getTiles()[col + 1][row] instanceof Water)
-                    && !map.getTiles()[col + 1][row].isSolid()) {
-                if (fullness == 3) {
-                    water(col + 1, row, map, 2);
-                }
-                if (fullness == 2) {
-                    water(col + 1, row, map, 1);
-                }
-                if (fullness == 1) {
-                    water(col + 1, row, map, 1);
-                }
+            // A dead or winning player stops the updates, what is drawn must stop moving with them
+            if (!active) {
+                player.savePreviousPosition();
+                enemies.savePreviousPositions();
+                camera.savePreviousPosition();
             }
 
-            if (col - 1 >= 0 && !(map.getTiles()[col - 1][row] instanceof Water)
-                    && !map.getTiles()[col - 1][row].isSolid()) {
-                if (fullness == 3) {
-                    water(col - 1, row, map, 2);
-                }
-                if (fullness == 2) {
-                    water(col - 1, row, map, 1);
-                }
-                if (fullness == 1) {
-                    water(col - 1, row, map, 1);
-                }
+            if (event != null && event.shouldCommit()) {
+                event.mapWidth = width;
+                event.mapHeight = height;
+                event.enemies = enemies.size();
+                event.commit();
             }
         }
+    }
+	
+    // Checks if an obstacle the player collided with kills it, using the environment bits of the map
+    // Precondition: None.
+    // Postcondition: Returns true if tile is not null and its cell is deadly (spikes).
+    private boolean isDeadly(Tile tile) {
+        return tile != null && map.hasFlag(tile.getCol(), tile.getRow(), Map.DEADLY);
+    }
 
-        if (row + 1 < map.getTiles()[0].length && !(map.getTiles()[col][row + 1] instanceof Water)
-                && !map.getTiles()[col][row + 1].isSolid()) {
-            water(col, row + 1, map, 0);
+    // Floods the area around a flower the player touched, type 1 flowers spread water, all others gas
+    // Precondition: flower must be on the map.
+    // Postcondition: Water starts flowing from the flower's cell or the flower's cell starts releasing gas.
+    public void onFlowerTouched(Flower flower) {
+        if (flower.getType() == 1) {
+            waterFlow.start(flower.getCol(), flower.getRow());
+        } else {
+            gas.emit(map, flower.getCol(), flower.getRow(), FLOWER_GAS);
         }
     }
 
+    // Gives the player the double jump and removes the power-up from the map
+    // Precondition: powerup must be on the map.
+    // Postcondition: The player can double jump and the power-up's cell is air.
+    public void onPowerupCollected(DoubleJumpPowerup powerup) {
+        player.grantDoubleJump();
+        map.setId(powerup.getCol(), powerup.getRow(), AIR);
+    }
+
     // Draws the entire game scene (tiles, player, enemies, camera view)
     // Precondition: Graphics object g must not be null, and camera, player, map, and enemies must be initialized.
-    // Postcondition: The current frame of the game scene is rendered on the screen.
-    public void draw(Graphics g) {
-        g.translate((int) -camera.getX(), (int) -camera.getY());
-
-        for (int x = 0; x < map.getWidth(); x++) {
-            for (int y = 0; y < map.getHeight(); y++) {
-                Tile tile = map.getTiles()[x][y];
-                if (tile == null)
-                    continue;
-                if (camera.isVisibleOnCamera(tile.getX(), tile.getY(), tile.getSize(), tile.getSize()))
-                    tile.draw(g);
+    // Postcondition: The current frame of the game scene is rendered on the screen, alpha (0 to 1) blends
+    //                player, enemies and camera between their previous and current positions.
+    public void draw(Graphics g, float alpha) {
+        GameEvents.Draw event = GameEvents.isRecording() ? GameEvents.begin(new GameEvents.Draw()) : null;
+        int overlaysDrawn = 0;
+        int cameraX = (int) camera.getRenderX(alpha);
+        int cameraY = (int) camera.getRenderY(alpha);
+        g.translate(-cameraX, -cameraY);
+
+        // Cells without an overlay come pre-rendered from the chunk cache, the overlays are drawn on top
+        int firstCol = Math.max(0, camera.getFirstVisibleCol(tileSize, alpha));
+        int firstRow = Math.max(0, camera.getFirstVisibleRow(tileSize, alpha));
+        int lastCol = Math.min(map.getWidth() - 1, camera.getLastVisibleCol(tileSize, alpha));
+        int lastRow = Math.min(map.getHeight() - 1, camera.getLastVisibleRow(tileSize, alpha));
+        int chunksDrawn = chunkCache.draw(g, firstCol, lastCol, firstRow, lastRow);
+        for (int x = firstCol; x <= lastCol; x++) {
+            for (int y = firstRow; y <= lastRow; y++) {
+                Tile overlay = map.getOverlay(x, y);
+                if (overlay != null) {
+                    overlay.draw(g);
+                    overlaysDrawn++;
+                }
             }
         }
 
-        for (int i = 0; i < enemies.length; i++) {
-            enemies[i].draw(g);
-        }
+        enemies.draw(g, alpha, cameraX, cameraY, cameraX + camera.getWidth(), cameraY + camera.getHeight());
 
-        player.draw(g);
+        player.draw(g, alpha);
 
         if (Camera.SHOW_CAMERA)
             camera.draw(g);
 
-        g.translate((int) +camera.getX(), (int) +camera.getY()); // Translate back to screen coordinates
+        g.translate(+cameraX, +cameraY); // Translate back to screen coordinates
 
         // Draw Gas effect overlay AFTER camera translation is reset
         // Now checks player.isObscuredByGas() directly
         if (player.isObscuredByGas()) {
             // Draw a translucent black overlay over the entire screen
-            // Alpha value 128 out of 255 (50% opacity)
-            g.setColor(new Color(0, 0, 0, 128)); 
+            g.setColor(GAS_OVERLAY);
             g.fillRect(0, 0, Main.SCREEN_WIDTH, Main.SCREEN_HEIGHT); // Draw relative to screen origin
         }
+
+        if (event != null && event.shouldCommit()) {
+            event.chunksDrawn = chunksDrawn;
+            event.chunksRendered = chunkCache.getRenderedCount();
+            event.overlaysDrawn = overlaysDrawn;
+            event.enemies = enemies.size();
+            event.commit();
+        }
+    }
+
+    // Copies what is drawn into a snapshot, so a LevelView can draw the level on another thread
+    // Precondition: Called on the thread that updates the level, between two updates.
+    // Postcondition: snapshot holds the camera, player and enemies of the last two updates and the current tile ids.
+    public void writeSnapshot(LevelSnapshot snapshot) {
+        if (snapshot.level != this || snapshot.ids == null) {
+            snapshot.level = this;
+            snapshot.width = width;
+            snapshot.height = height;
+            snapshot.tileSize = tileSize;
+            snapshot.tileTypes = tileTypes;
+            snapshot.ids = new byte[width * height];
+            snapshot.mapVersion = -1;
+        }
+        if (snapshot.mapVersion != map.getVersion()) {
+            map.copyIds(snapshot.ids);
+            snapshot.mapVersion = map.getVersion();
+        }
+
+        snapshot.previousCameraX = camera.getPreviousX();
+        snapshot.previousCameraY = camera.getPreviousY();
+        snapshot.cameraX = camera.getX();
+        snapshot.cameraY = camera.getY();
+        snapshot.cameraWidth = camera.getWidth();
+        snapshot.cameraHeight = camera.getHeight();
+
+        snapshot.previousPlayerX = player.getPreviousX();
+        snapshot.previousPlayerY = player.getPreviousY();
+        snapshot.playerX = player.getX();
+        snapshot.playerY = player.getY();
+        snapshot.playerWidth = player.getWidth();
+        snapshot.playerHeight = player.getHeight();
+        snapshot.obscuredByGas = player.isObscuredByGas();
+
+        if (snapshot.enemyX.length < enemies.size()) {
+            int length = Math.max(enemies.size(), snapshot.enemyX.length * 2);
+            snapshot.previousEnemyX = new float[length];
+            snapshot.previousEnemyY = new float[length];
+            snapshot.enemyX = new float[length];
+            snapshot.enemyY = new float[length];
+        }
+        snapshot.enemyCount = enemies.copyPositions(snapshot.previousEnemyX, snapshot.previousEnemyY, snapshot.enemyX, snapshot.enemyY);
+        snapshot.enemySize = enemies.getEnemySize();
+        snapshot.enemyImage = enemies.getImage();
     }
 
     // Triggers an event notifying all registered listeners that the player has died
@@ -381,123 +536,31 @@ public class Level {
         return map;
     }
 
-    // Returns the player object
+    // Turns the parallel enemy update on or off
     // Precondition: None.
-    // Postcondition: Returns the player instance currently in the game.
-    public Player getPlayer() {
-        return player;
+    // Postcondition: Enemies are updated in chunks on a ForkJoinPool if parallel is true, the result is the same either way.
+    public void setParallelEnemies(boolean parallel) {
+        enemies.setParallel(parallel);
     }
-    /**
-     * Preconditions:
-     * - col and row must be valid indices within the map.
-     * - map must not be null and should already be initialized with tiles.
-     * - numSquaresToFill must be greater than 0.
-     * - placedThisRound must not be null.
-     * * Postconditions:
-     * - A number of Gas tiles (up to numSquaresToFill) will be placed starting from (col, row) and expanding outward.
-     * - All added Gas tiles are also added to placedThisRound.
-     */
-    private void addGas(int col, int row, Map map, int numSquaresToFill, ArrayList<Gas> placedThisRound) {
-        Gas g = new Gas(col, row, tileSize, tileset.getImage("GasOne"), this, 0);
-        map.addTile(col, row, g);
-        placedThisRound.add(g);
-        numSquaresToFill--; 
-        
-        int index = 0; 
-        
-        while (index < placedThisRound.size() && numSquaresToFill > 0) {
-            Gas current = placedThisRound.get(index);
-            int c = current.getCol();
-            int r = current.getRow();
-
-            // up
-            if (r - 1 >= 0 && numSquaresToFill > 0) {
-                Tile up = map.getTiles()[c][r - 1];
-                if (!(up instanceof Gas) && !up.isSolid()) {
-                    Gas newGas = new Gas(c, r - 1, tileSize, tileset.getImage("GasOne"), this, 0);
-                    map.addTile(c, r - 1, newGas);
-                    placedThisRound.add(newGas);
-                    numSquaresToFill--;
-                }
-            }
-            // up right 
-            if (r - 1 >= 0 && numSquaresToFill > 0 && c + 1 < map.getWidth()) { // Changed c+1 >= 0 to c+1 < map.getWidth()
-                Tile upTileR = map.getTiles()[c + 1][r - 1];
-                if (!(upTileR instanceof Gas) && !upTileR.isSolid()) {
-                    Gas newGas = new Gas(c + 1, r - 1, tileSize, tileset.getImage("GasOne"), this, 0);
-                    map.addTile(c + 1, r + 1, newGas); // Corrected: should be r - 1
-                    placedThisRound.add(newGas);
-                    numSquaresToFill--;
-                }
-            }
 
-            // up left 
-            if (r - 1 >= 0 && numSquaresToFill > 0 && c - 1 >= 0) {
-                Tile upTileL = map.getTiles()[c - 1][r - 1];
-                if (!(upTileL instanceof Gas) && !upTileL.isSolid()) {
-                    Gas newGas = new Gas(c - 1, r - 1, tileSize, tileset.getImage("GasOne"), this, 0);
-                    map.addTile(c - 1, r - 1, newGas);
-                    placedThisRound.add(newGas);
-                    numSquaresToFill--;
-                }
-            }
-
-            // right
-            if (c + 1 < map.getWidth() && numSquaresToFill > 0) {
-                Tile rightTile = map.getTiles()[c + 1][r];
-                if (!(rightTile instanceof Gas) && !rightTile.isSolid()) {
-                    Gas newGas = new Gas(c + 1, r, tileSize, tileset.getImage("GasOne"), this, 0);
-                    map.addTile(c + 1, r, newGas);
-                    placedThisRound.add(newGas);
-                    numSquaresToFill--;
-                }
-            }
-
-            // left
-            if (c - 1 >= 0 && numSquaresToFill > 0) {
-                Tile leftTile = map.getTiles()[c - 1][r];
-                if (!(leftTile instanceof Gas) && !leftTile.isSolid()) {
-                    Gas newGas = new Gas(c - 1, r, tileSize, tileset.getImage("GasOne"), this, 0);
-                    map.addTile(c - 1, r, newGas);
-                    placedThisRound.add(newGas);
-                    numSquaresToFill--;
-                }
-            }
-
-            // down
-            if (r + 1 < map.getHeight() && numSquaresToFill > 0) {
-                Tile downTile = map.getTiles()[c][r + 1];
-                if (!(downTile instanceof Gas) && !downTile.isSolid()) {
-                    Gas newGas = new Gas(c, r + 1, tileSize, tileset.getImage("GasOne"), this, 0);
-                    map.addTile(c, r + 1, newGas);
-                    placedThisRound.add(newGas);
-                    numSquaresToFill--;
-                }
-            }
-
-            // down right
-            if (r + 1 < map.getHeight() && numSquaresToFill > 0 && c + 1 < map.getWidth()) {
-                Tile downTileR = map.getTiles()[c + 1][r + 1];
-                if (!(downTileR instanceof Gas) && !downTileR.isSolid()) {
-                    Gas newGas = new Gas(c + 1, r + 1, tileSize, tileset.getImage("GasOne"), this, 0);
-                    map.addTile(c + 1, r + 1, newGas);
-                    placedThisRound.add(newGas);
-                    numSquaresToFill--;
-                }
-            }
+    // Sets how far outside the camera enemies are still simulated
+    // Precondition: None.
+    // Postcondition: Everything further than margin pixels outside the camera sleeps, a negative margin simulates everything.
+    public void setActiveMargin(float margin) {
+        this.activeMargin = margin;
+    }
 
-            // down left
-            if (r + 1 < map.getHeight() && numSquaresToFill > 0 && c - 1 >= 0) {
-                Tile downTileL = map.getTiles()[c - 1][r + 1];
-                if (!(downTileL instanceof Gas) && !downTileL.isSolid()) {
-                    Gas newGas = new Gas(c - 1, r + 1, tileSize, tileset.getImage("GasOne"), this, 0);
-                    map.addTile(c - 1, r + 1, newGas);
-                    placedThisRound.add(newGas);
-                    numSquaresToFill--;
-                }
-            }
+    // Sets the color the level is drawn on, so the pre-rendered tiles can be opaque
+    // Precondition: None.
+    // Postcondition: The tiles are drawn on background, null draws them on whatever is already there.
+    public void setBackground(Color background) {
+        chunkCache.setBackground(background);
+    }
 
-            index++; 
-        }
+    // Returns the player object
+    // Precondition: None.
+    // Postcondition: Returns the player instance currently in the game.
+    public Player getPlayer() {
+        return player;
     }
 }
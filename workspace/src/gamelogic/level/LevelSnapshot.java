@@ -0,0 +1,48 @@
+package gamelogic.level;
+
+import java.awt.image.BufferedImage;
+
+import gamelogic.tiles.TileType;
+
+/**
+ * What a LevelView needs to draw a level: the previous and current positions of the camera, player and enemies
+ * and a copy of the tile ids. Written by Level.writeSnapshot on the simulation thread.
+ * The ids are only copied again when the map changed since the snapshot was written last.
+ */
+public class LevelSnapshot {
+
+	Level level; //level the snapshot was taken of
+	int width; //size of the map in number of tiles
+	int height;
+	int tileSize;
+	TileType[] tileTypes;
+	byte[] ids; //tile id of every cell, column by column
+	long mapVersion = -1; //version of the map the ids were copied at
+
+	float previousCameraX;
+	float previousCameraY;
+	float cameraX;
+	float cameraY;
+	int cameraWidth;
+	int cameraHeight;
+
+	float previousPlayerX;
+	float previousPlayerY;
+	float playerX;
+	float playerY;
+	int playerWidth;
+	int playerHeight;
+	boolean obscuredByGas;
+
+	int enemyCount;
+	int enemySize;
+	BufferedImage enemyImage;
+	float[] previousEnemyX = new float[0];
+	float[] previousEnemyY = new float[0];
+	float[] enemyX = new float[0];
+	float[] enemyY = new float[0];
+
+	public Level getLevel() {
+		return level;
+	}
+}
@@ -0,0 +1,99 @@
+package gamelogic.level;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.util.Arrays;
+
+import gameengine.graphics.MyGraphics;
+import gamelogic.Main;
+import gamelogic.tiledMap.TileChunkCache;
+
+/**
+ * Draws levels from snapshots, on a thread that does not update them.
+ * The view keeps its own copy of the tile ids and its own chunk cache: the cells that differ in a new snapshot
+ * are copied and only their chunks are rendered again. The overlays are pre-rendered like all other cells.
+ * Draws the same picture as Level.draw, except the hitboxes and the camera used for debugging.
+ */
+public class LevelView {
+
+	private Color background; //drawn behind the tiles, null for transparent chunks
+
+	private Level level; //level of the last snapshot drawn
+	private int height; //of the map in number of tiles
+	private byte[] ids; //ids the chunk cache is drawn from
+	private long mapVersion; //version of the map the ids are from
+	private TileChunkCache chunkCache;
+
+	/**
+	 * @param background The color the level is drawn on, see Level.setBackground
+	 */
+	public LevelView(Color background) {
+		this.background = background;
+	}
+
+	/**
+	 * @param alpha How far (0 to 1) the frame is between the previous and the current positions of the snapshot
+	 */
+	public void draw(Graphics g, LevelSnapshot snapshot, float alpha) {
+		updateTiles(snapshot);
+
+		int cameraX = (int)(snapshot.previousCameraX + (snapshot.cameraX - snapshot.previousCameraX) * alpha);
+		int cameraY = (int)(snapshot.previousCameraY + (snapshot.cameraY - snapshot.previousCameraY) * alpha);
+		g.translate(-cameraX, -cameraY);
+
+		int tileSize = snapshot.tileSize;
+		int firstCol = Math.max(0, Math.floorDiv(cameraX, tileSize));
+		int firstRow = Math.max(0, Math.floorDiv(cameraY, tileSize));
+		int lastCol = Math.min(snapshot.width - 1, Math.floorDiv(cameraX + snapshot.cameraWidth - 1, tileSize));
+		int lastRow = Math.min(snapshot.height - 1, Math.floorDiv(cameraY + snapshot.cameraHeight - 1, tileSize));
+		chunkCache.draw(g, firstCol, lastCol, firstRow, lastRow);
+
+		int size = snapshot.enemySize;
+		int right = cameraX + snapshot.cameraWidth;
+		int bottom = cameraY + snapshot.cameraHeight;
+		for (int i = 0; i < snapshot.enemyCount; i++) {
+			int renderX = (int)(snapshot.previousEnemyX[i] + (snapshot.enemyX[i] - snapshot.previousEnemyX[i]) * alpha);
+			int renderY = (int)(snapshot.previousEnemyY[i] + (snapshot.enemyY[i] - snapshot.previousEnemyY[i]) * alpha);
+			if(renderX + size <= cameraX || renderX >= right || renderY + size <= cameraY || renderY >= bottom) continue;
+			g.drawImage(snapshot.enemyImage, renderX, renderY, size, size, null);
+		}
+
+		int playerX = (int)(snapshot.previousPlayerX + (snapshot.playerX - snapshot.previousPlayerX) * alpha);
+		int playerY = (int)(snapshot.previousPlayerY + (snapshot.playerY - snapshot.previousPlayerY) * alpha);
+		g.setColor(Color.YELLOW);
+		MyGraphics.fillRectWithOutline(g, playerX, playerY, snapshot.playerWidth, snapshot.playerHeight);
+
+		g.translate(+cameraX, +cameraY);
+
+		if(snapshot.obscuredByGas) {
+			g.setColor(Level.GAS_OVERLAY);
+			g.fillRect(0, 0, Main.SCREEN_WIDTH, Main.SCREEN_HEIGHT);
+		}
+	}
+
+	//Brings the ids of the chunk cache up to the snapshot, a new level gets a new cache
+	private void updateTiles(LevelSnapshot snapshot) {
+		if(snapshot.level != level) {
+			level = snapshot.level;
+			height = snapshot.height;
+			ids = snapshot.ids.clone();
+			mapVersion = snapshot.mapVersion;
+			chunkCache = new TileChunkCache(snapshot.width, snapshot.height, snapshot.tileSize, ids, snapshot.tileTypes);
+			chunkCache.setViewSize(snapshot.cameraWidth, snapshot.cameraHeight);
+			chunkCache.setBackground(background);
+			return;
+		}
+		if(snapshot.mapVersion == mapVersion) return;
+		mapVersion = snapshot.mapVersion;
+
+		int from = 0;
+		while(from < ids.length) {
+			int mismatch = Arrays.mismatch(ids, from, ids.length, snapshot.ids, from, ids.length);
+			if(mismatch < 0) break;
+			int cell = from + mismatch;
+			ids[cell] = snapshot.ids[cell];
+			chunkCache.onCellChanged(cell / height, cell % height);
+			from = cell + 1;
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package gamelogic.level;
+
+import gameengine.hitbox.RectHitbox;
+
+/**
+ * Something in the level that reacts when the player enters its hitbox, see TriggerIndex
+ */
+public interface Trigger {
+	public RectHitbox getHitbox();
+
+	/**
+	 * Called once when the player starts to intersect the trigger
+	 * @return true if the trigger is used up and should be removed
+	 */
+	public boolean onPlayerEnter(Level level);
+}
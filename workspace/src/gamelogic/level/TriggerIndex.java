@@ -0,0 +1,66 @@
+package gamelogic.level;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import gameengine.hitbox.RectHitbox;
+import gameengine.hitbox.SpatialHash;
+
+/**
+ * The triggers of a level in a spatial hash keyed by grid cell, so finding the ones the player
+ * is in costs the same no matter how many triggers the level has.
+ * A trigger fires when the player enters it, not on every update the player stays inside.
+ */
+public class TriggerIndex {
+
+	private SpatialHash hash;
+	private ArrayList<Trigger> triggers = new ArrayList<>(); //indexed by id in the hash
+	private boolean[] removed = new boolean[16]; //used up triggers are skipped until reset
+	private int[] lastInside = new int[16]; //last update the player was inside each trigger
+	private int tick;
+
+	public TriggerIndex(int cellSize) {
+		hash = new SpatialHash(cellSize);
+	}
+
+	public void add(Trigger trigger) {
+		int id = triggers.size();
+		if(id == removed.length) {
+			removed = Arrays.copyOf(removed, id * 2);
+			lastInside = Arrays.copyOf(lastInside, id * 2);
+		}
+		triggers.add(trigger);
+		removed[id] = false;
+		lastInside[id] = -1;
+		hash.insert(id, trigger.getHitbox());
+	}
+
+	/**
+	 * Brings back every removed trigger and forgets which ones the player was inside
+	 */
+	public void reset() {
+		Arrays.fill(removed, false);
+		Arrays.fill(lastInside, -1);
+		tick = 0;
+	}
+
+	/**
+	 * Fires the triggers the player entered since the last update, in the order they were added
+	 */
+	public void update(RectHitbox player, Level level) {
+		tick++;
+		int hits = hash.query(player);
+		for (int i = 0; i < hits; i++) {
+			int id = hash.getResult(i);
+			if(removed[id]) continue;
+			boolean entered = lastInside[id] != tick - 1;
+			lastInside[id] = tick;
+			if(entered && triggers.get(id).onPlayerEnter(level)) removed[id] = true;
+		}
+	}
+
+	//-----------------------------------------------------Getters
+	public int size() {
+		return triggers.size();
+	}
+}
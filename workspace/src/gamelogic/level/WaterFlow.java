@@ -0,0 +1,151 @@
+package gamelogic.level;
+
+import java.util.Arrays;
+
+import gameengine.profiling.GameEvents;
+import gamelogic.tiledMap.Map;
+
+/**
+ * Spreads the water of flowers over the map, a limited number of steps per update.
+ * Water runs down, fills up on solid ground and flows sideways with less fullness each cell.
+ * The flood is done depth first on an explicit stack in the same order as the recursive version did,
+ * so it settles in exactly the same Falling_water, Full_water, Half_water and Quarter_water cells.
+ * The fullness of every cell is kept in the tile id grid of the map (one water id per fullness).
+ */
+public class WaterFlow {
+
+	public static final int[] WATER_IDS = {18, 21, 20, 19}; //tile id of the water for each fullness (0 to 3)
+
+	private int stepsPerUpdate = 256;
+
+	//Stack of the cells being flooded, stage is the next thing to do for the cell
+	private int[] cols = new int[64];
+	private int[] rows = new int[64];
+	private byte[] fullnesses = new byte[64];
+	private byte[] stages = new byte[64];
+	private int size;
+
+	//Floods waiting for the current one to finish
+	private int[] pendingCols = new int[8];
+	private int[] pendingRows = new int[8];
+	private int pendingFirst;
+	private int pendingCount;
+
+	private int cellsTouched; //water cells placed in the current update
+
+	/**
+	 * Starts a full water source at the cell, after all floods that were started before
+	 */
+	public void start(int col, int row) {
+		if(pendingFirst + pendingCount == pendingCols.length) {
+			//Move the waiting floods to the front, growing only if the array is full
+			int length = pendingCount * 2 > pendingCols.length ? pendingCols.length * 2 : pendingCols.length;
+			pendingCols = Arrays.copyOfRange(pendingCols, pendingFirst, pendingFirst + length);
+			pendingRows = Arrays.copyOfRange(pendingRows, pendingFirst, pendingFirst + length);
+			pendingFirst = 0;
+		}
+		pendingCols[pendingFirst + pendingCount] = col;
+		pendingRows[pendingFirst + pendingCount] = row;
+		pendingCount++;
+	}
+
+	/**
+	 * Stops all floods, the water already placed stays on the map
+	 */
+	public void reset() {
+		size = 0;
+		pendingFirst = 0;
+		pendingCount = 0;
+	}
+
+	/**
+	 * Does up to stepsPerUpdate steps of the floods, a step places at most one water cell
+	 */
+	public void update(Map map) {
+		if(!isFlowing()) return;
+		GameEvents.WaterSpread event = GameEvents.isRecording() ? GameEvents.begin(new GameEvents.WaterSpread()) : null;
+		cellsTouched = 0;
+		int steps = 0;
+		while (steps < stepsPerUpdate) {
+			if(size == 0) {
+				if(pendingCount == 0) break;
+				push(pendingCols[pendingFirst], pendingRows[pendingFirst], 3);
+				pendingFirst++;
+				pendingCount--;
+				if(pendingCount == 0) pendingFirst = 0;
+			}
+			step(map);
+			steps++;
+		}
+
+		if(event != null && event.shouldCommit()) {
+			event.steps = steps;
+			event.cellsTouched = cellsTouched;
+			event.flowing = isFlowing();
+			event.commit();
+		}
+	}
+
+	private void step(Map map) {
+		int top = size - 1;
+		int col = cols[top];
+		int row = rows[top];
+		int fullness = fullnesses[top];
+		switch (stages[top]++) {
+		case 0:
+			map.setId(col, row, WATER_IDS[fullness]);
+			cellsTouched++;
+			//Falling water that lands on solid ground becomes full
+			if(fullness == 0 && row + 1 < map.getHeight() && !map.getType(col, row + 1).isWater() && map.isSolid(col, row + 1)) {
+				push(col, row, 3);
+			}
+			break;
+		case 1:
+			if(canFlowInto(map, col, row + 1)) {
+				stages[top] = 4; //water that can fall does not flow sideways
+				push(col, row + 1, 0);
+			}
+			break;
+		case 2:
+			if(fullness > 0 && canFlowInto(map, col + 1, row)) push(col + 1, row, fullness == 3 ? 2 : 1);
+			break;
+		case 3:
+			if(fullness > 0 && canFlowInto(map, col - 1, row)) push(col - 1, row, fullness == 3 ? 2 : 1);
+			break;
+		case 4:
+			if(canFlowInto(map, col, row + 1)) push(col, row + 1, 0);
+			break;
+		default:
+			size--;
+			break;
+		}
+	}
+
+	private void push(int col, int row, int fullness) {
+		if(size == cols.length) {
+			cols = Arrays.copyOf(cols, size * 2);
+			rows = Arrays.copyOf(rows, size * 2);
+			fullnesses = Arrays.copyOf(fullnesses, size * 2);
+			stages = Arrays.copyOf(stages, size * 2);
+		}
+		cols[size] = col;
+		rows[size] = row;
+		fullnesses[size] = (byte) fullness;
+		stages[size] = 0;
+		size++;
+	}
+
+	private static boolean canFlowInto(Map map, int col, int row) {
+		return col >= 0 && col < map.getWidth() && row < map.getHeight()
+				&& !map.getType(col, row).isWater() && !map.isSolid(col, row);
+	}
+
+	public void setStepsPerUpdate(int stepsPerUpdate) {
+		this.stepsPerUpdate = stepsPerUpdate;
+	}
+
+	//-----------------------------------------------------Getters
+	public boolean isFlowing() {
+		return size > 0 || pendingCount > 0;
+	}
+}
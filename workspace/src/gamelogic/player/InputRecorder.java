@@ -0,0 +1,99 @@
+package gamelogic.player;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Records the input of another source tick by tick, so it can be played again with InputReplay.
+ * The keys are sampled once per tick, the player reads the sampled keys so they are exactly what is recorded.
+ * 
+ * Format: the magic bytes "PIR", a version byte, then one run per change of the keys:
+ * a byte with the keys held (LEFT | RIGHT | JUMP) followed by the number of ticks they were held as a varint.
+ */
+public class InputRecorder implements InputSource {
+
+	public static final byte[] MAGIC = {'P', 'I', 'R'};
+	public static final int VERSION = 1;
+
+	public static final int LEFT = 1;
+	public static final int RIGHT = 2;
+	public static final int JUMP = 4;
+
+	private InputSource source;
+	private DataOutputStream out;
+	private int keys = -1; //keys of the current run, -1 before the first tick
+	private int run; //ticks in the current run
+	private int ticks;
+
+	public InputRecorder(InputSource source, OutputStream out) throws IOException {
+		this.source = source;
+		this.out = new DataOutputStream(new BufferedOutputStream(out));
+		this.out.write(MAGIC);
+		this.out.writeByte(VERSION);
+	}
+
+	public InputRecorder(InputSource source, String path) throws IOException {
+		this(source, new FileOutputStream(path));
+	}
+
+	@Override
+	public void nextTick() {
+		source.nextTick();
+		int next = (source.isLeftKeyDown() ? LEFT : 0) | (source.isRightKeyDown() ? RIGHT : 0) | (source.isJumpKeyDown() ? JUMP : 0);
+		if(next != keys) {
+			try {
+				writeRun();
+			} catch (IOException e) {
+				throw new RuntimeException("Could not write the input recording", e);
+			}
+			keys = next;
+			run = 0;
+		}
+		run++;
+		ticks++;
+	}
+
+	/**
+	 * Writes the last run and closes the stream, nothing is recorded after this
+	 */
+	public void close() throws IOException {
+		if(out == null) return;
+		writeRun();
+		out.close();
+		out = null;
+	}
+
+	private void writeRun() throws IOException {
+		if(run == 0 || out == null) return;
+		out.writeByte(keys);
+		int n = run;
+		while (n >= 0x80) {
+			out.writeByte((n & 0x7F) | 0x80);
+			n >>>= 7;
+		}
+		out.writeByte(n);
+	}
+
+	@Override
+	public boolean isJumpKeyDown() {
+		return (keys & JUMP) != 0;
+	}
+
+	@Override
+	public boolean isLeftKeyDown() {
+		return (keys & LEFT) != 0;
+	}
+
+	@Override
+	public boolean isRightKeyDown() {
+		return (keys & RIGHT) != 0;
+	}
+
+	//-----------------------------------------------------Getters
+	public int getTicks() {
+		return ticks;
+	}
+}
@@ -0,0 +1,115 @@
+package gamelogic.player;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Plays back input recorded by an InputRecorder, one recorded tick per nextTick.
+ * When the recording is over no key is held anymore.
+ */
+public class InputReplay implements InputSource {
+
+	private byte[] keys; //keys of every run
+	private int[] lengths; //ticks of every run
+	private int runs;
+	private int totalTicks;
+
+	private int run = -1; //current run, -1 before the first tick
+	private int tick; //ticks done in the current run
+	private int current; //keys held this tick
+
+	public InputReplay(InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		try {
+			byte[] magic = new byte[InputRecorder.MAGIC.length];
+			data.readFully(magic);
+			if(!Arrays.equals(magic, InputRecorder.MAGIC)) throw new IOException("Not an input recording");
+			int version = data.readUnsignedByte();
+			if(version != InputRecorder.VERSION) throw new IOException("Unsupported input recording version: " + version);
+
+			keys = new byte[64];
+			lengths = new int[64];
+			int next;
+			while ((next = data.read()) != -1) {
+				if(runs == keys.length) {
+					keys = Arrays.copyOf(keys, runs * 2);
+					lengths = Arrays.copyOf(lengths, runs * 2);
+				}
+				keys[runs] = (byte) next;
+				lengths[runs] = readVarint(data);
+				totalTicks += lengths[runs];
+				runs++;
+			}
+		} finally {
+			data.close();
+		}
+	}
+
+	public InputReplay(String path) throws IOException {
+		this(new FileInputStream(path));
+	}
+
+	private static int readVarint(DataInputStream data) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = data.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			if((b & 0x80) == 0) {
+				if(value <= 0) throw new IOException("Invalid run length in input recording");
+				return value;
+			}
+		}
+		throw new EOFException("Run length in input recording is too long");
+	}
+
+	/**
+	 * Starts the recording again from its first tick
+	 */
+	public void reset() {
+		run = -1;
+		tick = 0;
+		current = 0;
+	}
+
+	@Override
+	public void nextTick() {
+		if(run >= runs) return;
+		if(run < 0 || ++tick == lengths[run]) {
+			run++;
+			tick = 0;
+		}
+		current = run < runs ? keys[run] : 0;
+	}
+
+	@Override
+	public boolean isJumpKeyDown() {
+		return (current & InputRecorder.JUMP) != 0;
+	}
+
+	@Override
+	public boolean isLeftKeyDown() {
+		return (current & InputRecorder.LEFT) != 0;
+	}
+
+	@Override
+	public boolean isRightKeyDown() {
+		return (current & InputRecorder.RIGHT) != 0;
+	}
+
+	//-----------------------------------------------------Getters
+	/**
+	 * @return true once nextTick went past the last recorded tick
+	 */
+	public boolean isFinished() {
+		return run >= runs;
+	}
+
+	public int getTotalTicks() {
+		return totalTicks;
+	}
+}
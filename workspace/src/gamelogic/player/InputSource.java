@@ -0,0 +1,17 @@
+package gamelogic.player;
+
+/**
+ * Where the player's input comes from, see PlayerInput.setSource
+ */
+public interface InputSource {
+	/**
+	 * Called once at the start of every tick the level is updated, before the player reads the keys
+	 */
+	public void nextTick();
+
+	public boolean isJumpKeyDown();
+
+	public boolean isLeftKeyDown();
+
+	public boolean isRightKeyDown();
+}
@@ -9,9 +9,7 @@ import gameengine.hitbox.RectHitbox;
 import gamelogic.Main;
 import gamelogic.level.Level;
 import gamelogic.tiledMap.Map; 
-import gamelogic.tiles.Gas; 
 import gamelogic.tiles.Tile;
-import gamelogic.tiles.Water; 
 
 public class Player extends PhysicsObject {
     public float walkSpeed = 400;
@@ -77,15 +75,15 @@ public class Player extends PhysicsObject {
         int startY = Math.max(0, playerGridY - checkRadius);
         int endY = Math.min(currentMap.getHeight() - 1, playerGridY + checkRadius);
 
-        // Iterate through nearby tiles to check for intersection with Water and Gas
+        // Iterate through nearby cells to check for intersection with Water and Gas, using the environment bits of the map
         for (int x = startX; x <= endX; x++) {
             for (int y = startY; y <= endY; y++) {
-                Tile tile = currentMap.getTiles()[x][y];
-                if (tile != null && tile.getHitbox() != null && this.hitbox.isIntersecting(tile.getHitbox())) {
-                    if (tile instanceof Water) {
+                int flags = currentMap.getFlags(x, y);
+                if ((flags & (Map.WATER | Map.GAS)) != 0 && currentMap.getType(x, y).isIntersecting(x, y, this.hitbox)) {
+                    if ((flags & Map.WATER) != 0) {
                         this.inWater = true;
                     }
-                    if (tile instanceof Gas) {
+                    if ((flags & Map.GAS) != 0) {
                         this.isObscuredByGas = true;
                     }
                 }
@@ -145,9 +143,9 @@ public class Player extends PhysicsObject {
     }
 
     @Override
-    public void draw(Graphics g) {
+    public void draw(Graphics g, float alpha) {
         g.setColor(Color.YELLOW);
-        MyGraphics.fillRectWithOutline(g, (int) getX(), (int) getY(), width, height);
+        MyGraphics.fillRectWithOutline(g, (int) getRenderX(alpha), (int) getRenderY(alpha), width, height);
 
         // Debugging display for collision matrix (from original code)
         if (Main.DEBUGGING) {
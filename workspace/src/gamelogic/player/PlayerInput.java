@@ -12,26 +12,64 @@ import gameengine.input.KeyboardInputManager;
  * @author Paul
  *
  */
-class PlayerInput {
+public class PlayerInput {
+	
+	/**
+	 * Reads the keys straight from the KeyboardInputManager
+	 */
+	public static final InputSource KEYBOARD = new InputSource() {
+		@Override
+		public void nextTick() {}
+		
+		@Override
+		public boolean isJumpKeyDown() {
+			return KeyboardInputManager.isKeyDown(KeyEvent.VK_SPACE);
+		}
+		
+		@Override
+		public boolean isLeftKeyDown() {
+			return KeyboardInputManager.isKeyDown(KeyEvent.VK_A) || KeyboardInputManager.isKeyDown(KeyEvent.VK_LEFT);
+		}
+		
+		@Override
+		public boolean isRightKeyDown() {
+			return KeyboardInputManager.isKeyDown(KeyEvent.VK_D) || KeyboardInputManager.isKeyDown(KeyEvent.VK_RIGHT);
+		}
+	};
+	
+	private static InputSource source = KEYBOARD;
+	
+	/**
+	 * Makes the player read its input from the source instead of the keyboard
+	 * @param source The input source, null to go back to the keyboard
+	 */
+	public static void setSource(InputSource source) {
+		PlayerInput.source = source != null ? source : KEYBOARD;
+	}
+	
+	public static InputSource getSource() {
+		return source;
+	}
+	
 	/**
 	 * 
 	 * @return true if the walk-up-key is down
 	 */
 	public static boolean isJumpKeyDown() {
-		return KeyboardInputManager.isKeyDown(KeyEvent.VK_SPACE);
+		return source.isJumpKeyDown();
 	}
 	/**
 	 * 
 	 * @return true if the walk-left-key is down
 	 */
 	public static boolean isLeftKeyDown() {
-		return KeyboardInputManager.isKeyDown(KeyEvent.VK_A) || KeyboardInputManager.isKeyDown(KeyEvent.VK_LEFT);
+		return source.isLeftKeyDown();
 	}
 	/**
 	 * 
 	 * @return true if the walk-right-key is down
 	 */
 	public static boolean isRightKeyDown() {
-		return KeyboardInputManager.isKeyDown(KeyEvent.VK_D) || KeyboardInputManager.isKeyDown(KeyEvent.VK_RIGHT);
+		return source.isRightKeyDown();
 	}
 }
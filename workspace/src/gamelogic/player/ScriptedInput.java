@@ -0,0 +1,66 @@
+package gamelogic.player;
+
+/**
+ * Input that follows a script, for running the game without a keyboard.
+ * A script is a list of steps like "R:90 RJ:15 -:20": the keys held (L = left, R = right, J = jump, - = none)
+ * and for how many ticks. When the last step is over the script starts again.
+ */
+public class ScriptedInput implements InputSource {
+
+	private boolean[] left;
+	private boolean[] right;
+	private boolean[] jump;
+	private int[] ticks;
+	private int step;
+	private int tick = -1; //tick of the current step, the first nextTick starts the first step
+
+	public ScriptedInput(String script) {
+		String[] steps = script.trim().split("[\\s,]+");
+		left = new boolean[steps.length];
+		right = new boolean[steps.length];
+		jump = new boolean[steps.length];
+		ticks = new int[steps.length];
+		for (int i = 0; i < steps.length; i++) {
+			String[] parts = steps[i].split(":");
+			if(parts.length != 2) throw new IllegalArgumentException("Step must look like KEYS:TICKS: " + steps[i]);
+			String keys = parts[0].toUpperCase();
+			left[i] = keys.contains("L");
+			right[i] = keys.contains("R");
+			jump[i] = keys.contains("J");
+			ticks[i] = Integer.parseInt(parts[1]);
+			if(ticks[i] <= 0) throw new IllegalArgumentException("Step must last at least one tick: " + steps[i]);
+		}
+	}
+
+	/**
+	 * Starts the script again from its first step
+	 */
+	public void reset() {
+		step = 0;
+		tick = -1;
+	}
+
+	@Override
+	public void nextTick() {
+		tick++;
+		if(tick == ticks[step]) {
+			tick = 0;
+			step = (step + 1) % ticks.length;
+		}
+	}
+
+	@Override
+	public boolean isJumpKeyDown() {
+		return jump[step];
+	}
+
+	@Override
+	public boolean isLeftKeyDown() {
+		return left[step];
+	}
+
+	@Override
+	public boolean isRightKeyDown() {
+		return right[step];
+	}
+}
@@ -1,61 +1,281 @@
 package gamelogic.tiledMap;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import gamelogic.tiles.Tile;
+import gamelogic.tiles.TileType;
 
+/**
+ * The tiles of a level, stored as one byte id per cell that refers to a shared TileType.
+ * Tiles that carry their own state (Flag, Flower, DoubleJumpPowerup, ...) are overlays on top of the ids,
+ * kept in chunks of CHUNK_SIZE x CHUNK_SIZE cells that are only created when an overlay is added to them.
+ * Changed cells are tracked, so reset() only has to touch those to bring the map back to its initial state.
+ * Only the overlays that need updating are kept in a list and updated, every other cell is inert.
+ * Every cell also has a bitmask of its environment (SOLID, DEADLY, WATER, GAS, TRIGGER) for quick queries.
+ */
 public class Map {
-	
+
+	public static final int CHUNK_SIZE = 32; //size of a chunk in number of tiles
+
+	//Bits of the environment of a cell, see getFlags
+	public static final int SOLID = 1;
+	public static final int DEADLY = 2;
+	public static final int WATER = 4;
+	public static final int GAS = 8;
+	public static final int TRIGGER = 16;
+
 	private int width; //size in number of tiles;
 	private int height; //size in number of tiles;
 	private int fullWidth; //size in pixels
 	private int fullHeight; //size in pixels
-	private Tile[][] tiles;
 	private int tileSize;
-	
-	public Map(int width, int height, int tileSize, Tile[][]tiles) {
+	private StaticCollisionLayer collisionLayer;
+
+	private byte[] ids; //tile id of every cell, column by column
+	private TileType[] types; //indexed by tile id
+	private byte[] typeFlags; //environment bits of every tile id
+	private byte[] flags; //environment bits of every cell, column by column
+	private int chunksX; //number of chunks horizontally
+	private Tile[][] chunks; //overlays of every chunk, null if the chunk has none
+	private int loadedChunks;
+
+	private byte[] initialIds; //ids reset() goes back to
+	private Tile[][] initialChunks; //overlays reset() goes back to
+	private long[] changed; //one bit per cell changed since saveInitialState
+	private int[] changedCells = new int[64]; //cells with their bit set in changed
+	private int changedCount;
+
+	private List<MapChangeListener> changeListeners = new ArrayList<>();
+	private long version; //number of cell changes so far
+
+	/**
+	 * @param ids Tile id of every cell at index col * height + row, used by the map without copying
+	 * @param types The type of every tile id
+	 */
+	public Map(int width, int height, int tileSize, byte[] ids, TileType[] types) {
 		this.width = width;
 		this.height = height;
-		this.tiles = tiles.clone();
 		this.tileSize = tileSize;
 		this.fullWidth = width * tileSize;
 		this.fullHeight = height * tileSize;
+		this.ids = ids;
+		this.types = types;
+		this.typeFlags = new byte[types.length];
+		for (int id = 0; id < types.length; id++) {
+			typeFlags[id] = getFlags(types[id]);
+		}
+		this.flags = new byte[ids.length];
+		for (int cell = 0; cell < ids.length; cell++) {
+			flags[cell] = typeFlags[ids[cell]];
+		}
+		this.chunksX = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		int chunksY = (height + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		this.chunks = new Tile[chunksX * chunksY][];
+		this.changed = new long[(width * height + 63) / 64];
+		this.collisionLayer = new StaticCollisionLayer(width, height, tileSize);
+		collisionLayer.build(this);
+		saveInitialState();
+	}
+
+	/**
+	 * Makes the current ids and overlays the state reset() goes back to
+	 */
+	public void saveInitialState() {
+		initialIds = ids.clone();
+		initialChunks = new Tile[chunks.length][];
+		for (int i = 0; i < chunks.length; i++) {
+			if(chunks[i] != null) initialChunks[i] = chunks[i].clone();
+		}
+		Arrays.fill(changed, 0);
+		changedCount = 0;
 	}
-	
-	public void update(float tslf) {
-		for (int i = 0; i < width; i++) {
-			for (int j = 0; j < height; j++) {
-				Tile tile = tiles[i][j];
-				if(tile == null) continue;
-				tile.update(tslf);
+
+	/**
+	 * Puts every cell changed since saveInitialState back, in time proportional to the number of changed cells
+	 */
+	public void reset() {
+		for (int i = 0; i < changedCount; i++) {
+			int cell = changedCells[i];
+			int col = cell / height;
+			int row = cell % height;
+			boolean wasSolid = isSolid(col, row);
+			ids[cell] = initialIds[cell];
+			flags[cell] = typeFlags[ids[cell]];
+			int chunk = chunk(col, row);
+			Tile initial = initialChunks[chunk] == null ? null : initialChunks[chunk][index(col, row)];
+			if(initial != null && chunks[chunk] == null) {
+				chunks[chunk] = new Tile[CHUNK_SIZE * CHUNK_SIZE];
+				loadedChunks++;
 			}
+			if(chunks[chunk] != null) replaceOverlay(chunks[chunk], index(col, row), initial);
+			changed[cell >> 6] &= ~(1L << cell);
+			if(wasSolid || isSolid(col, row)) collisionLayer.rebuild(this, col, row);
+			throwCellChangedEvent(col, row);
 		}
+		changedCount = 0;
 	}
-	
+
+	/**
+	 * Puts a tile with its own state on top of the cell, the id of the cell is kept
+	 */
 	public void addTile(int col, int row, Tile t) {
-		tiles[col][row]=t;
+		int chunk = chunk(col, row);
+		if(chunks[chunk] == null) {
+			chunks[chunk] = new Tile[CHUNK_SIZE * CHUNK_SIZE];
+			loadedChunks++;
+		}
+		Tile old = replaceOverlay(chunks[chunk], index(col, row), t);
+		markChanged(col, row);
+		throwCellChangedEvent(col, row);
+		//The merged obstacles only change when solid tiles are added or removed
+		if((old != null && old.isSolid()) || (t != null && t.isSolid())) collisionLayer.rebuild(this, col, row);
 	}
-	
+
+	/**
+	 * Changes the id of a cell and removes its overlay
+	 */
+	public void setId(int col, int row, int id) {
+		boolean wasSolid = isSolid(col, row);
+		Tile[] chunk = chunks[chunk(col, row)];
+		if(chunk != null) replaceOverlay(chunk, index(col, row), null);
+		ids[col * height + row] = (byte) id;
+		flags[col * height + row] = typeFlags[id];
+		markChanged(col, row);
+		throwCellChangedEvent(col, row);
+		if(wasSolid || types[id].isSolid()) collisionLayer.rebuild(this, col, row);
+	}
+
+	/**
+	 * @return The overlay of the cell, null if it has none
+	 */
+	public Tile getOverlay(int col, int row) {
+		Tile[] chunk = chunks[chunk(col, row)];
+		if(chunk == null) return null;
+		return chunk[index(col, row)];
+	}
+
+	public int getId(int col, int row) {
+		return ids[col * height + row];
+	}
+
+	public TileType getType(int col, int row) {
+		return types[ids[col * height + row]];
+	}
+
+	/**
+	 * @return The environment bits of the cell, see SOLID, DEADLY, WATER, GAS and TRIGGER
+	 */
+	public int getFlags(int col, int row) {
+		return flags[col * height + row];
+	}
+
+	public boolean hasFlag(int col, int row, int flag) {
+		return (flags[col * height + row] & flag) != 0;
+	}
+
+	public boolean isSolid(int col, int row) {
+		Tile overlay = getOverlay(col, row);
+		if(overlay != null) return overlay.isSolid();
+		return getType(col, row).isSolid();
+	}
+
+	public boolean isMergeableSolid(int col, int row) {
+		return getOverlay(col, row) == null && getType(col, row).isMergeable();
+	}
+
+	/**
+	 * Puts the overlay into the chunk
+	 * @return The overlay that was replaced
+	 */
+	private Tile replaceOverlay(Tile[] chunk, int index, Tile t) {
+		Tile old = chunk[index];
+		chunk[index] = t;
+		return old;
+	}
+
+	private static byte getFlags(TileType type) {
+		int flags = 0;
+		if(type.isSolid()) flags |= SOLID;
+		if(type.isDeadly()) flags |= DEADLY;
+		if(type.isWater()) flags |= WATER;
+		if(type.isGas()) flags |= GAS;
+		if(type.isTrigger()) flags |= TRIGGER;
+		return (byte) flags;
+	}
+
+	private void markChanged(int col, int row) {
+		int cell = col * height + row;
+		if((changed[cell >> 6] & (1L << cell)) != 0) return;
+		changed[cell >> 6] |= 1L << cell;
+		if(changedCount == changedCells.length) changedCells = Arrays.copyOf(changedCells, changedCount * 2);
+		changedCells[changedCount++] = cell;
+	}
+
+	public void addChangeListener(MapChangeListener listener) {
+		changeListeners.add(listener);
+	}
+
+	private void throwCellChangedEvent(int col, int row) {
+		version++;
+		for (int i = 0; i < changeListeners.size(); i++) {
+			changeListeners.get(i).onCellChanged(col, row);
+		}
+	}
+
+	private int chunk(int col, int row) {
+		return col / CHUNK_SIZE + (row / CHUNK_SIZE) * chunksX;
+	}
+
+	private static int index(int col, int row) {
+		return (col % CHUNK_SIZE) * CHUNK_SIZE + row % CHUNK_SIZE;
+	}
+
+	/**
+	 * Copies the id of every cell, column by column, e.g. for drawing the map on another thread
+	 */
+	public void copyIds(byte[] dest) {
+		System.arraycopy(ids, 0, dest, 0, ids.length);
+	}
+
 	//-----------------------------------------------------Getters
+	/**
+	 * @return A number that changes whenever a cell changes, equal versions mean equal ids
+	 */
+	public long getVersion() {
+		return version;
+	}
+
 	public int getTileSize() {
 		return tileSize;
 	}
-	
+
 	public int getWidth() {
 		return width;
 	}
-	
+
 	public int getHeight() {
 		return height;
 	}
-	
+
 	public int getFullWidth() {
 		return fullWidth;
 	}
-	
+
 	public int getFullHeight() {
 		return fullHeight;
 	}
-	
-	public Tile[][] getTiles() {
-		return tiles;
+
+	public int getLoadedChunks() {
+		return loadedChunks;
+	}
+
+	public int getChangedCount() {
+		return changedCount;
+	}
+
+	public StaticCollisionLayer getCollisionLayer() {
+		return collisionLayer;
 	}
 }
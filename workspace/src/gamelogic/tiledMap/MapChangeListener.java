@@ -0,0 +1,8 @@
+package gamelogic.tiledMap;
+
+public interface MapChangeListener {
+	/**
+	 * Called when the id or the overlay of a cell changed
+	 */
+	public void onCellChanged(int col, int row);
+}
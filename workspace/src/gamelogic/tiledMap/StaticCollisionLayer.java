@@ -0,0 +1,283 @@
+package gamelogic.tiledMap;
+
+import java.util.Arrays;
+
+import gameengine.PhysicsObject;
+import gameengine.hitbox.RectHitbox;
+import gameengine.profiling.GameEvents;
+import gamelogic.tiles.SolidBlock;
+import gamelogic.tiles.Tile;
+
+/**
+ * Precomputed obstacles of a map for the collision checks of Physics Objects.
+ * Neighbouring SolidTiles are merged (greedy meshing) into as few rectangles as possible,
+ * every other solid tile (e.g. Spikes) stays a separate obstacle.
+ * The layer is split into the chunks of the map: rectangles never cross a chunk border, so a change of a cell
+ * only rebuilds its chunk. Chunks without obstacles store nothing, the others 2 bytes per cell.
+ */
+public class StaticCollisionLayer {
+
+	public static final int CHUNK_SIZE = Map.CHUNK_SIZE; //size of a chunk in number of tiles
+
+	private int width; //size in number of tiles
+	private int height; //size in number of tiles
+	private int tileSize;
+	private int chunksX; //number of chunks horizontally
+	private int chunksY;
+	private char[][] cells; //for every cell of a chunk 1 + the index of its obstacle, 0 if the cell is free. Null if the chunk is free
+	private Tile[][] obstacles; //the obstacles of every chunk, null if it has none
+	private int[] counts; //number of obstacles of every chunk
+	private int obstacleCount;
+
+	public StaticCollisionLayer(int width, int height, int tileSize) {
+		this.width = width;
+		this.height = height;
+		this.tileSize = tileSize;
+		this.chunksX = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		this.chunksY = (height + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		this.cells = new char[chunksX * chunksY][];
+		this.obstacles = new Tile[chunksX * chunksY][];
+		this.counts = new int[chunksX * chunksY];
+	}
+
+	/**
+	 * Collects the obstacles of the map from its tile ids
+	 */
+	public void build(Map map) {
+		GameEvents.CollisionLayerBuild event = GameEvents.isRecording() ? GameEvents.begin(new GameEvents.CollisionLayerBuild()) : null;
+		for (int cx = 0; cx < chunksX; cx++) {
+			for (int cy = 0; cy < chunksY; cy++) {
+				buildChunk(map, cx, cy);
+			}
+		}
+
+		if(event != null && event.shouldCommit()) {
+			event.mapWidth = width;
+			event.mapHeight = height;
+			event.blocks = obstacleCount;
+			event.commit();
+		}
+	}
+
+	/**
+	 * Collects the obstacles of the chunk with the given cell again, after its solidity changed
+	 */
+	public void rebuild(Map map, int col, int row) {
+		GameEvents.CollisionLayerBuild event = GameEvents.isRecording() ? GameEvents.begin(new GameEvents.CollisionLayerBuild()) : null;
+		buildChunk(map, col / CHUNK_SIZE, row / CHUNK_SIZE);
+
+		if(event != null && event.shouldCommit()) {
+			event.mapWidth = CHUNK_SIZE;
+			event.mapHeight = CHUNK_SIZE;
+			event.blocks = counts[col / CHUNK_SIZE + (row / CHUNK_SIZE) * chunksX];
+			event.commit();
+		}
+	}
+
+	private void buildChunk(Map map, int cx, int cy) {
+		int chunk = cx + cy * chunksX;
+		obstacleCount -= counts[chunk];
+		counts[chunk] = 0;
+		if(cells[chunk] != null) Arrays.fill(cells[chunk], (char) 0);
+		if(obstacles[chunk] != null) Arrays.fill(obstacles[chunk], null);
+
+		int firstCol = cx * CHUNK_SIZE, firstRow = cy * CHUNK_SIZE;
+		int lastCol = Math.min(width, firstCol + CHUNK_SIZE);
+		int lastRow = Math.min(height, firstRow + CHUNK_SIZE);
+		for (int row = firstRow; row < lastRow; row++) {
+			for (int col = firstCol; col < lastCol; col++) {
+				if(getObstacle(col, row) != null || !map.isSolid(col, row)) continue;
+
+				if(!isMergeable(map, col, row)) {
+					//Solid overlays keep their own state, Spikes and other special obstacles get the hitbox of their type
+					Tile overlay = map.getOverlay(col, row);
+					if(overlay != null) {
+						if(overlay.getHitbox() != null) put(chunk, overlay, col, row, 1, 1);
+					} else if(map.getType(col, row).hasHitbox()) {
+						put(chunk, new SolidBlock(map.getType(col, row), col, row, 1, 1), col, row, 1, 1);
+					}
+					continue;
+				}
+
+				//Grow the rectangle to the right as far as possible ...
+				int cols = 1;
+				while(col + cols < lastCol && isMergeable(map, col + cols, row)) cols++;
+
+				//... then downwards as long as the whole span stays solid
+				int rows = 1;
+				while(row + rows < lastRow && isRowMergeable(map, col, row + rows, cols)) rows++;
+
+				put(chunk, new SolidBlock(map.getType(col, row), col, row, cols, rows), col, row, cols, rows);
+			}
+		}
+		if(counts[chunk] == 0) {
+			cells[chunk] = null;
+			obstacles[chunk] = null;
+		}
+	}
+
+	//Adds an obstacle to the chunk and lets the cells it covers point to it
+	private void put(int chunk, Tile obstacle, int col, int row, int cols, int rows) {
+		if(cells[chunk] == null) {
+			cells[chunk] = new char[CHUNK_SIZE * CHUNK_SIZE];
+			obstacles[chunk] = new Tile[8];
+		}
+		if(counts[chunk] == obstacles[chunk].length) obstacles[chunk] = Arrays.copyOf(obstacles[chunk], counts[chunk] * 2);
+		obstacles[chunk][counts[chunk]++] = obstacle;
+		obstacleCount++;
+		for (int x = col; x < col + cols; x++) {
+			for (int y = row; y < row + rows; y++) {
+				cells[chunk][index(x, y)] = (char) counts[chunk];
+			}
+		}
+	}
+
+	/**
+	 * Finds the closest obstacle below, above, left and right of a hitbox
+	 * @param closest Filled with the obstacles, indexed by PhysicsObject.BOT, TOP, LEF and RIG (null if there is none)
+	 */
+	public void findClosest(float leftSide, float topSide, float rightSide, float botSide, Tile[] closest) {
+		float closestBot = Float.MAX_VALUE, closestTop = Float.MAX_VALUE, closestLef = Float.MAX_VALUE, closestRig = Float.MAX_VALUE;
+		Tile bot = null, top = null, lef = null, rig = null;
+		int botCol = -1, botRow = -1, topCol = -1, topRow = -1, lefCol = -1, lefRow = -1, rigCol = -1, rigRow = -1;
+
+		//put records a merged obstacle in every cell it covers, so an obstacle directly above or below
+		//(left or right of) the hitbox shows up in one of the columns (rows) the hitbox covers
+		int firstCol = Math.max(0, (int) Math.floor(leftSide / tileSize));
+		int lastCol = Math.min(width - 1, (int) Math.floor(rightSide / tileSize));
+		int firstRow = Math.max(0, (int) Math.floor(topSide / tileSize));
+		int lastRow = Math.min(height - 1, (int) Math.floor(botSide / tileSize));
+
+		//Find closest obstacle below
+		for (int row = Math.max(0, (int) Math.floor(botSide / tileSize)); row < height; row++) {
+			if(row * tileSize - botSide > closestBot) break; //Tiles in this and all lower rows are further away
+			for (int col = firstCol; col <= lastCol; col++) {
+				Tile tile = getObstacle(col, row);
+				if(tile == null || tile == bot) continue; //merged obstacles cover several cells
+				RectHitbox obstacle = tile.getHitbox();
+				if(obstacle == null) continue;
+
+				float tileLeftSide = obstacle.getX();
+				float tileRightSide = obstacle.getX() + obstacle.getWidth();
+				float tileTopSide = obstacle.getY();
+				if(leftSide < tileRightSide && rightSide > tileLeftSide && botSide <= tileTopSide) {
+					//When current bottom side of player is above top side of obstacle
+					if(isCloser(tileTopSide - (botSide), col, row, closestBot, botCol, botRow)) {
+						//When the top side of the obstacle is closer to the bottom side of the player
+						bot = tile;
+						closestBot = tileTopSide - (botSide);
+						botCol = col;
+						botRow = row;
+					}
+				}
+			}
+		}
+		//Find closest obstacle above
+		for (int row = Math.min(height - 1, (int) Math.floor(topSide / tileSize)); row >= 0; row--) {
+			if(topSide - (row + 1) * tileSize > closestTop) break; //Tiles in this and all higher rows are further away
+			for (int col = firstCol; col <= lastCol; col++) {
+				Tile tile = getObstacle(col, row);
+				if(tile == null || tile == top) continue; //merged obstacles cover several cells
+				RectHitbox obstacle = tile.getHitbox();
+				if(obstacle == null) continue;
+
+				float tileLeftSide = obstacle.getX();
+				float tileRightSide = obstacle.getX() + obstacle.getWidth();
+				float tileBotSide = obstacle.getY() + obstacle.getHeight();
+				if(leftSide < tileRightSide && rightSide > tileLeftSide && topSide >= tileBotSide) {
+					//When current top side of player is below bottom side of obstacle
+					if(isCloser(topSide - (tileBotSide), col, row, closestTop, topCol, topRow)) {
+						top = tile;
+						closestTop = topSide - (tileBotSide);
+						topCol = col;
+						topRow = row;
+					}
+				}
+			}
+		}
+		//Find closest obstacle to the right
+		for (int col = Math.max(0, (int) Math.floor(rightSide / tileSize)); col < width; col++) {
+			if(col * tileSize - rightSide > closestRig) break; //Tiles in this and all further right columns are further away
+			for (int row = firstRow; row <= lastRow; row++) {
+				Tile tile = getObstacle(col, row);
+				if(tile == null || tile == rig) continue; //merged obstacles cover several cells
+				RectHitbox obstacle = tile.getHitbox();
+				if(obstacle == null) continue;
+
+				float tileLeftSide = obstacle.getX();
+				float tileTopSide = obstacle.getY();
+				float tileBotSide = obstacle.getY() + obstacle.getHeight();
+				if(topSide < tileBotSide && botSide > tileTopSide && rightSide <= tileLeftSide) {
+					//When current right side of player is left to left side of obstacle
+					if(isCloser(tileLeftSide - (rightSide), col, row, closestRig, rigCol, rigRow)) {
+						rig = tile;
+						closestRig = tileLeftSide - (rightSide);
+						rigCol = col;
+						rigRow = row;
+					}
+				}
+			}
+		}
+		//Find closest obstacle to the left
+		for (int col = Math.min(width - 1, (int) Math.floor(leftSide / tileSize)); col >= 0; col--) {
+			if(leftSide - (col + 1) * tileSize > closestLef) break; //Tiles in this and all further left columns are further away
+			for (int row = firstRow; row <= lastRow; row++) {
+				Tile tile = getObstacle(col, row);
+				if(tile == null || tile == lef) continue; //merged obstacles cover several cells
+				RectHitbox obstacle = tile.getHitbox();
+				if(obstacle == null) continue;
+
+				float tileRightSide = obstacle.getX() + obstacle.getWidth();
+				float tileTopSide = obstacle.getY();
+				float tileBotSide = obstacle.getY() + obstacle.getHeight();
+				if(topSide < tileBotSide && botSide > tileTopSide && leftSide >= tileRightSide) {
+					//When current left side of player is right to right side of obstacle
+					if(isCloser(leftSide - (tileRightSide), col, row, closestLef, lefCol, lefRow)) {
+						lef = tile;
+						closestLef = leftSide - (tileRightSide);
+						lefCol = col;
+						lefRow = row;
+					}
+				}
+			}
+		}
+		closest[PhysicsObject.BOT] = bot;
+		closest[PhysicsObject.TOP] = top;
+		closest[PhysicsObject.LEF] = lef;
+		closest[PhysicsObject.RIG] = rig;
+	}
+
+	private boolean isMergeable(Map map, int col, int row) {
+		return getObstacle(col, row) == null && map.isMergeableSolid(col, row);
+	}
+
+	private boolean isRowMergeable(Map map, int col, int row, int cols) {
+		for (int x = col; x < col + cols; x++) {
+			if(!isMergeable(map, x, row)) return false;
+		}
+		return true;
+	}
+
+	//The whole map used to be scanned column by column, so on equal distances the tile with the lower column (then row) wins
+	private static boolean isCloser(float distance, int col, int row, float closest, int closestCol, int closestRow) {
+		if(distance != closest) return distance < closest;
+		return col < closestCol || (col == closestCol && row < closestRow);
+	}
+
+	private static int index(int col, int row) {
+		return (col % CHUNK_SIZE) * CHUNK_SIZE + row % CHUNK_SIZE;
+	}
+
+	//-----------------------------------------------------Getters
+	public Tile getObstacle(int col, int row) {
+		int chunk = col / CHUNK_SIZE + (row / CHUNK_SIZE) * chunksX;
+		char[] chunkCells = cells[chunk];
+		if(chunkCells == null) return null;
+		int obstacle = chunkCells[index(col, row)];
+		return obstacle == 0 ? null : obstacles[chunk][obstacle - 1];
+	}
+
+	public int getObstacleCount() {
+		return obstacleCount;
+	}
+}
@@ -0,0 +1,216 @@
+package gamelogic.tiledMap;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import gameengine.loaders.ImageLoader;
+import gamelogic.tiles.TileType;
+
+/**
+ * The cells of a map without an overlay, pre-rendered into images of chunkCells x chunkCells cells.
+ * Drawing the map then only copies the chunks in view instead of scaling the image of every cell.
+ * A chunk is rendered again when the map reports a change inside it (water, gas, collected power-ups, reset).
+ * Only the chunks drawn last are kept, the least recently drawn ones give their image to new chunks.
+ * How many are kept follows from the size of the view, see setViewSize.
+ * With a background color the chunks are opaque and copied without blending, chunks of air are not drawn at all.
+ * A cache can also draw a copy of the ids instead of a map, then every cell including the overlays is pre-rendered
+ * and the owner of the copy reports the changes.
+ */
+public class TileChunkCache implements MapChangeListener {
+
+	public static final int CHUNK_PIXELS = 512; //approximate size of a chunk image
+
+	private Map map; //null when drawing a copy of the ids
+	private byte[] ids; //cells of the copy, column by column
+	private TileType[] types; //indexed by tile id, for the copy
+	private int width; //size in number of tiles
+	private int height;
+	private int tileSize;
+	private int chunkCells; //size of a chunk in number of tiles
+	private int chunkPixels;
+	private int chunksX; //number of chunks horizontally
+	private int chunksY;
+	private Color background; //drawn behind the cells, null for transparent chunks
+
+	private BufferedImage[] images; //image of every chunk, null if it is not cached
+	private boolean[] dirty; //the chunk changed since its image was rendered
+	private boolean[] empty; //the chunk only has air, valid when it is not dirty
+	private long[] lastDrawn; //frame the chunk was drawn last
+	private int cachedCount;
+	private int maxCachedChunks = Integer.MAX_VALUE; //every chunk is kept until the view size is known
+	private long frame;
+	private int renderedCount; //chunks rendered in the last draw
+
+	public TileChunkCache(Map map) {
+		this(map.getWidth(), map.getHeight(), map.getTileSize());
+		this.map = map;
+		map.addChangeListener(this);
+	}
+
+	/**
+	 * A cache of a copy of the ids, onCellChanged has to be called for every cell changed in the copy
+	 * @param ids The id of every cell, column by column
+	 * @param types The types of the ids
+	 */
+	public TileChunkCache(int width, int height, int tileSize, byte[] ids, TileType[] types) {
+		this(width, height, tileSize);
+		this.ids = ids;
+		this.types = types;
+	}
+
+	private TileChunkCache(int width, int height, int tileSize) {
+		this.width = width;
+		this.height = height;
+		this.tileSize = tileSize;
+		this.chunkCells = Math.max(1, CHUNK_PIXELS / tileSize);
+		this.chunkPixels = chunkCells * tileSize;
+		this.chunksX = (width + chunkCells - 1) / chunkCells;
+		this.chunksY = (height + chunkCells - 1) / chunkCells;
+		this.images = new BufferedImage[chunksX * chunksY];
+		this.dirty = new boolean[chunksX * chunksY];
+		this.empty = new boolean[chunksX * chunksY];
+		this.lastDrawn = new long[chunksX * chunksY];
+		Arrays.fill(dirty, true);
+	}
+
+	@Override
+	public void onCellChanged(int col, int row) {
+		dirty[col / chunkCells + (row / chunkCells) * chunksX] = true;
+	}
+
+	/**
+	 * Draws the chunks covering the given cells, in map coordinates
+	 * @return The number of chunks drawn
+	 */
+	public int draw(Graphics g, int firstCol, int lastCol, int firstRow, int lastRow) {
+		frame++;
+		renderedCount = 0;
+		int drawn = 0;
+		int lastChunkX = Math.min(chunksX - 1, lastCol / chunkCells);
+		int lastChunkY = Math.min(chunksY - 1, lastRow / chunkCells);
+		for (int cx = Math.max(0, firstCol / chunkCells); cx <= lastChunkX; cx++) {
+			for (int cy = Math.max(0, firstRow / chunkCells); cy <= lastChunkY; cy++) {
+				int chunk = cx + cy * chunksX;
+				if(dirty[chunk]) render(cx, cy);
+				if(empty[chunk]) continue;
+				lastDrawn[chunk] = frame;
+				g.drawImage(images[chunk], cx * chunkPixels, cy * chunkPixels, null);
+				drawn++;
+			}
+		}
+		return drawn;
+	}
+
+	/**
+	 * Throws all images away, they are rendered again when they are drawn next
+	 */
+	public void clear() {
+		for (int i = 0; i < images.length; i++) {
+			if(images[i] != null) images[i].flush();
+			images[i] = null;
+			dirty[i] = true;
+		}
+		cachedCount = 0;
+	}
+
+	/**
+	 * @param background The color behind the map, the chunks become opaque. Null for transparent chunks.
+	 */
+	public void setBackground(Color background) {
+		this.background = background;
+		clear();
+	}
+
+	private void render(int cx, int cy) {
+		int chunk = cx + cy * chunksX;
+		dirty[chunk] = false;
+		int firstCol = cx * chunkCells, firstRow = cy * chunkCells;
+		int lastCol = Math.min(width, firstCol + chunkCells);
+		int lastRow = Math.min(height, firstRow + chunkCells);
+
+		//Overlays have their own state and are drawn on top every frame, air has no image
+		empty[chunk] = true;
+		for (int col = firstCol; col < lastCol && empty[chunk]; col++) {
+			for (int row = firstRow; row < lastRow; row++) {
+				TileType type = getType(col, row);
+				if(type != null && type.getImage() != null) {
+					empty[chunk] = false;
+					break;
+				}
+			}
+		}
+		if(empty[chunk]) return;
+
+		if(images[chunk] == null) {
+			images[chunk] = createImage();
+			cachedCount++;
+		}
+		Graphics2D g = images[chunk].createGraphics();
+		if(background != null) {
+			g.setColor(background);
+		} else {
+			g.setComposite(AlphaComposite.Clear);
+		}
+		g.fillRect(0, 0, chunkPixels, chunkPixels);
+		g.setComposite(AlphaComposite.SrcOver);
+		g.translate(-firstCol * tileSize, -firstRow * tileSize);
+		for (int col = firstCol; col < lastCol; col++) {
+			for (int row = firstRow; row < lastRow; row++) {
+				TileType type = getType(col, row);
+				if(type != null) type.draw(g, col, row);
+			}
+		}
+		g.dispose();
+		renderedCount++;
+	}
+
+	//The type pre-rendered for the cell, null for cells with an overlay
+	private TileType getType(int col, int row) {
+		if(map == null) return types[ids[col * height + row]];
+		return map.getOverlay(col, row) == null ? map.getType(col, row) : null;
+	}
+
+	//Reuses the image of the least recently drawn chunk once the cache is full
+	private BufferedImage createImage() {
+		if(cachedCount >= maxCachedChunks) {
+			int oldest = -1;
+			for (int i = 0; i < images.length; i++) {
+				if(images[i] != null && lastDrawn[i] < frame && (oldest < 0 || lastDrawn[i] < lastDrawn[oldest])) oldest = i;
+			}
+			if(oldest >= 0) {
+				BufferedImage image = images[oldest];
+				images[oldest] = null;
+				dirty[oldest] = true;
+				cachedCount--;
+				return image;
+			}
+		}
+		return ImageLoader.createCompatibleImage(chunkPixels, chunkPixels, background != null ? Transparency.OPAQUE : Transparency.BITMASK);
+	}
+
+	/**
+	 * Keeps the chunks a view of this size can show at once plus a ring of chunks around them,
+	 * so scrolling back and forth near the edge of a chunk does not render it again
+	 * @param width The size of the view in pixels
+	 */
+	public void setViewSize(int width, int height) {
+		//An unaligned view covers one chunk more than fits in it
+		int visibleX = (width - 1) / chunkPixels + 2;
+		int visibleY = (height - 1) / chunkPixels + 2;
+		this.maxCachedChunks = (visibleX + 2) * (visibleY + 2);
+	}
+
+	//-----------------------------------------------------Getters
+	public int getCachedCount() {
+		return cachedCount;
+	}
+
+	public int getRenderedCount() {
+		return renderedCount;
+	}
+}
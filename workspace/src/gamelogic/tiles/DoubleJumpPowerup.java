@@ -6,10 +6,11 @@ import java.awt.image.BufferedImage;
 // Import RectHitbox specifically
 import gameengine.hitbox.RectHitbox;
 import gamelogic.level.Level;
+import gamelogic.level.Trigger;
 
 // DoubleJumpPowerup represents a collectible tile that grants the player
 // the ability to double jump.
-public class DoubleJumpPowerup extends Tile {
+public class DoubleJumpPowerup extends Tile implements Trigger {
 
     private BufferedImage image;
     private int col;
@@ -57,4 +58,12 @@ public class DoubleJumpPowerup extends Tile {
             g.drawImage(image, col * size, row * size, size, size, null);
         }
     }
+
+    // Called by the level's TriggerIndex when the player touches the power-up.
+    // Returns true so the power-up can only be collected once.
+    @Override
+    public boolean onPlayerEnter(Level level) {
+        level.onPowerupCollected(this);
+        return true;
+    }
 }
\ No newline at end of file
@@ -4,8 +4,9 @@ import java.awt.image.BufferedImage;
 
 import gameengine.hitbox.RectHitbox;
 import gamelogic.level.Level;
+import gamelogic.level.Trigger;
 
-public class Flag extends Tile{
+public class Flag extends Tile implements Trigger{
 
 	public Flag(float x, float y, int size, BufferedImage image, Level level) {
 		super(x, y, size, image, false, level);
@@ -13,8 +14,9 @@ public class Flag extends Tile{
 	}
 
 	@Override
-	public void update(float tslf) {
-		if(hitbox.isIntersecting(Level.player.getHitbox())) level.onPlayerWin();
+	public boolean onPlayerEnter(Level level) {
+		level.onPlayerWin();
+		return false;
 	}
 	
 }
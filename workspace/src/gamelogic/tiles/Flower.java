@@ -4,8 +4,9 @@ import java.awt.image.BufferedImage;
 
 import gameengine.hitbox.RectHitbox;
 import gamelogic.level.Level;
+import gamelogic.level.Trigger;
 
-public class Flower extends Tile{
+public class Flower extends Tile implements Trigger{
 	private int type;
 	public Flower(float x, float y, int size, BufferedImage image, Level level, int type) {
 		super(x, y, size, image, false, level);
@@ -20,5 +21,11 @@ public class Flower extends Tile{
 	public void setType(int type) {
 		this.type = type;
 	}
+	
+	@Override
+	public boolean onPlayerEnter(Level level) {
+		level.onFlowerTouched(this);
+		return true;
+	}
 
 }
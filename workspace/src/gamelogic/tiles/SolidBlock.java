@@ -0,0 +1,32 @@
+package gamelogic.tiles;
+
+import gameengine.hitbox.RectHitbox;
+
+/**
+ * A rectangle of neighbouring cells of the same solid type merged into one obstacle, built from the type's hitbox template.
+ * Types that cannot be merged (e.g. Spikes) get a block of a single cell with exactly the hitbox of the type.
+ * It is only used for collision and never drawn, the map draws the cells for that.
+ */
+public class SolidBlock extends Tile{
+
+	private int cols;
+	private int rows;
+
+	public SolidBlock(TileType type, int col, int row, int cols, int rows) {
+		super(col, row, type.getSize(), null, true, null);
+		this.cols = cols;
+		this.rows = rows;
+		//The template covers the first cell, the block reaches as far into the last cell as the template does
+		this.hitbox = new RectHitbox(position.x, position.y, type.getHitboxOffsetX(), type.getHitboxOffsetY(),
+				(cols - 1) * size + type.getHitboxWidth(), (rows - 1) * size + type.getHitboxHeight());
+	}
+
+	//------------------------------------Getters
+	public int getCols() {
+		return cols;
+	}
+
+	public int getRows() {
+		return rows;
+	}
+}
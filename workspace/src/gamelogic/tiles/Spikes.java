@@ -24,19 +24,19 @@ public class Spikes extends Tile{
 		switch (orientation) {
 		case HORIZONTAL_UPWARDS:
 			hitbox = new RectHitbox(x*size , y*size, offsetX, offsetY, size - offsetX, size);
-			image = tileset.getImage("Spikes_upwards");
+			image = tileset.getImage("Spikes_upwards", size);
 			break;
 		case HORIZONTAL_DOWNWARDS:
 			hitbox = new RectHitbox(x*size , y*size, offsetX, 0, size - offsetX, size - offsetY);
-			image = tileset.getImage("Spikes_downwards");;
+			image = tileset.getImage("Spikes_downwards", size);;
 			break;
 		case VERTICAL_LEFTWARDS:
 			hitbox = new RectHitbox(x*size , y*size, offsetY, offsetX, size, size - offsetX);
-			image = tileset.getImage("Spikes_leftwards");;
+			image = tileset.getImage("Spikes_leftwards", size);;
 			break;
 		case VERTICAL_RIGHTWARDS:
 			hitbox = new RectHitbox(x*size , y*size, 0, offsetX, size - offsetY, size - offsetX);
-			image = tileset.getImage("Spikes_rightwards");;
+			image = tileset.getImage("Spikes_rightwards", size);;
 			break;
 
 		default:
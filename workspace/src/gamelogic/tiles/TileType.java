@@ -0,0 +1,179 @@
+package gamelogic.tiles;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+
+import gameengine.hitbox.Hitbox;
+import gameengine.hitbox.RectHitbox;
+
+/**
+ * The properties shared by every cell with the same tile id (flyweight).
+ * The map only stores the id of a cell, cells of overlay types are also backed by their own Tile object.
+ */
+public class TileType {
+
+	private int id;
+	private int size;
+	private BufferedImage image;
+	private boolean solid;
+	private boolean deadly;
+	private boolean overlay; //cells of this type carry state and are represented by a Tile object on the map
+	private boolean trigger; //the tile of a cell of this type reacts when the player enters it
+	private int waterLevel = -1; //fullness of the water, -1 if the cell holds no water
+	private int gasIntensity; //0 if the cell holds no gas
+
+	//Hitbox template, same meaning as the parameters of RectHitbox
+	private boolean hasHitbox;
+	private int hitboxOffsetX;
+	private int hitboxOffsetY;
+	private int hitboxWidth;
+	private int hitboxHeight;
+
+	public TileType(int id, int size, BufferedImage image, boolean solid) {
+		this.id = id;
+		this.size = size;
+		this.image = image;
+		this.solid = solid;
+	}
+
+	public void setHitbox(int offsetX, int offsetY, int width, int height) {
+		this.hasHitbox = true;
+		this.hitboxOffsetX = offsetX;
+		this.hitboxOffsetY = offsetY;
+		this.hitboxWidth = width;
+		this.hitboxHeight = height;
+	}
+
+	public void setDeadly(boolean deadly) {
+		this.deadly = deadly;
+	}
+
+	public void setOverlay(boolean overlay) {
+		this.overlay = overlay;
+	}
+
+	public void setTrigger(boolean trigger) {
+		this.trigger = trigger;
+	}
+
+	public void setWaterLevel(int waterLevel) {
+		this.waterLevel = waterLevel;
+	}
+
+	public void setGasIntensity(int gasIntensity) {
+		this.gasIntensity = gasIntensity;
+	}
+
+	/**
+	 * Draws a cell of this type the same way Tile.draw does
+	 */
+	public void draw(Graphics g, int col, int row) {
+		if(image != null) g.drawImage(image, col * size, row * size, size, size, null);
+
+		if(hasHitbox && Hitbox.SHOW_HITBOXES) {
+			g.setColor(Color.GREEN);
+			g.drawRect((int)getHitboxX(col), (int)getHitboxY(row), hitboxWidth - hitboxOffsetX, hitboxHeight - hitboxOffsetY);
+		}
+	}
+
+	/**
+	 * @return true if the hitbox of the cell intersects the given hitbox, without creating the cell's hitbox
+	 */
+	public boolean isIntersecting(int col, int row, RectHitbox hitbox) {
+		if(!hasHitbox) return false;
+		float x = getHitboxX(col);
+		float y = getHitboxY(row);
+		return x < hitbox.getX() + hitbox.getWidth() && x + (hitboxWidth - hitboxOffsetX) > hitbox.getX()
+				&& y < hitbox.getY() + hitbox.getHeight() && y + (hitboxHeight - hitboxOffsetY) > hitbox.getY();
+	}
+
+	/**
+	 * @return true if cells of this type have a hitbox, see createHitbox
+	 */
+	public boolean hasHitbox() {
+		return hasHitbox;
+	}
+
+	public RectHitbox createHitbox(int col, int row) {
+		if(!hasHitbox) return null;
+		return new RectHitbox((float)col * size, (float)row * size, hitboxOffsetX, hitboxOffsetY, hitboxWidth, hitboxHeight);
+	}
+
+	private float getHitboxX(int col) {
+		return (float)col * size + hitboxOffsetX;
+	}
+
+	private float getHitboxY(int row) {
+		return (float)row * size + hitboxOffsetY;
+	}
+
+	//------------------------------------Getters
+	public int getId() {
+		return id;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	//Hitbox template, same meaning as the parameters of RectHitbox
+	public int getHitboxOffsetX() {
+		return hitboxOffsetX;
+	}
+
+	public int getHitboxOffsetY() {
+		return hitboxOffsetY;
+	}
+
+	public int getHitboxWidth() {
+		return hitboxWidth;
+	}
+
+	public int getHitboxHeight() {
+		return hitboxHeight;
+	}
+
+	public BufferedImage getImage() {
+		return image;
+	}
+
+	public boolean isSolid() {
+		return solid;
+	}
+
+	/**
+	 * @return true for plain solid cells, which can be merged with their neighbours for collision
+	 */
+	public boolean isMergeable() {
+		return solid && !deadly && !overlay;
+	}
+
+	public boolean isDeadly() {
+		return deadly;
+	}
+
+	public boolean isOverlay() {
+		return overlay;
+	}
+
+	public boolean isTrigger() {
+		return trigger;
+	}
+
+	public boolean isWater() {
+		return waterLevel >= 0;
+	}
+
+	public int getWaterLevel() {
+		return waterLevel;
+	}
+
+	public boolean isGas() {
+		return gasIntensity > 0;
+	}
+
+	public int getGasIntensity() {
+		return gasIntensity;
+	}
+}
@@ -47,11 +47,10 @@ class EditorTiledMap {
 	public void draw(Graphics g) {
 		//Fill tiles
 		g.setColor(Color.LIGHT_GRAY);
-		for (int x = 0; x < width; x++) {
-			for (int y = 0; y < height; y++) {
+		for (int x = getFirstVisibleCol(); x <= getLastVisibleCol(); x++) {
+			for (int y = getFirstVisibleRow(); y <= getLastVisibleRow(); y++) {
 				EditorTile tile = tiles[x][y];
 
-				if(!MapEditor.camera.isVisibleOnCamera(tile.getX(), tile.getY(), tile.getSize(), tile.getSize())) continue;
 				if(tile.getImage() != null) g.drawImage(tile.getImage(), tile.getX(), tile.getY(), tileSize, tileSize, null);
 			}
 		}
@@ -72,15 +71,29 @@ class EditorTiledMap {
 
 	public void drawOutlines(Graphics g) {
 		g.setColor(Color.BLACK);
-		for (int x = 0; x < width; x++) {
-			for (int y = 0; y < height; y++) {
-				EditorTile tile = tiles[x][y];
-
-				if(!MapEditor.camera.isVisibleOnCamera(tile.getX(), tile.getY(), tile.getSize(), tile.getSize())) continue;
-				tile.drawOutline(g);
+		for (int x = getFirstVisibleCol(); x <= getLastVisibleCol(); x++) {
+			for (int y = getFirstVisibleRow(); y <= getLastVisibleRow(); y++) {
+				tiles[x][y].drawOutline(g);
 			}
 		}
 	}
+
+	//Visible range of the map, the editor camera is not interpolated
+	private int getFirstVisibleCol() {
+		return Math.max(0, MapEditor.camera.getFirstVisibleCol(tileSize, 1));
+	}
+
+	private int getLastVisibleCol() {
+		return Math.min(width - 1, MapEditor.camera.getLastVisibleCol(tileSize, 1));
+	}
+
+	private int getFirstVisibleRow() {
+		return Math.max(0, MapEditor.camera.getFirstVisibleRow(tileSize, 1));
+	}
+
+	private int getLastVisibleRow() {
+		return Math.min(height - 1, MapEditor.camera.getLastVisibleRow(tileSize, 1));
+	}
 	
 	//------------------------------------------Getters
 	public int getMouseTileX() {
@@ -243,7 +243,7 @@ class MapEditor extends GameBase{
 	}
 
 	@Override
-	public void draw(Graphics g) {
+	public void draw(Graphics g, float alpha) {
 		drawBackground(g);
 
 		g.translate(-(int)camera.getX(), -(int)camera.getY());